@@ -0,0 +1,59 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.data.Output;
+import com.myq.interview.cleaner.data.RobotPosition;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Fleet#run(int)} of a fixed number of robots on one room with a growing number of threads; ideally the time
+ * drops in proportion to the threads (up to the number of cores).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.properties")
+@State(Scope.Benchmark)
+public class FleetBenchmark {
+
+    private static final int ROBOTS = 16;
+
+    @Param({"1000"})
+    public int size;
+
+    @Param({"1000000"})
+    public int commands;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private List<Mission> missions;
+
+    /**
+     * Every robot runs the same commands from its own start, spread over the room's diagonal.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Mission mission = StreamingInputReader.read(Workloads.write(size, 0.1, commands));
+        Room room = mission.getRoom();
+        missions = new ArrayList<>(ROBOTS);
+        for (int i = 0; i < ROBOTS; i++) {
+            int cell = room.index((i + 1) * size / (ROBOTS + 1), (i + 1) * size / (ROBOTS + 1));
+            while (room.getCell(cell) != Room.SPACE) {
+                cell++;
+            }
+            RobotPosition start = new RobotPosition(cell % size, cell / size, Robot.DIRECTION[i % Robot.DIRECTION.length]);
+            missions.add(new Mission(room, start, mission.getProgram(), mission.getBattery()));
+        }
+    }
+
+    @Benchmark
+    public List<Output> run() throws InterruptedException {
+        return new Fleet(missions).run(threads);
+    }
+}
@@ -0,0 +1,47 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.data.Input;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and validating the input JSON: the object mapper with {@code verifyInputValidity} against the streaming reader.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.properties")
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    @Param({"0.0", "0.3"})
+    public double density;
+
+    @Param({"10000", "1000000"})
+    public int commands;
+
+    private InputOutputParser parser;
+
+    @Setup
+    public void setUp() throws IOException {
+        File inputFile = Workloads.write(size, density, commands);
+        parser = new InputOutputParser(inputFile, new File(inputFile.getAbsolutePath() + ".out"));
+    }
+
+    @Benchmark
+    public Input getInput() throws IOException {
+        return parser.getInput();
+    }
+
+    @Benchmark
+    public Mission readInput() throws IOException {
+        return parser.readInput();
+    }
+}
@@ -0,0 +1,36 @@
+package com.myq.interview.cleaner;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Planner#plan()} of a whole room; the time should grow about in proportion to the cells.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.properties")
+@State(Scope.Benchmark)
+public class PlannerBenchmark {
+
+    @Param({"500", "1000"})
+    public int size;
+
+    @Param({"0.1"})
+    public double columnDensity;
+
+    private Mission mission;
+
+    @Setup
+    public void setUp() throws IOException {
+        mission = StreamingInputReader.read(Workloads.write(size, columnDensity, 1));
+    }
+
+    @Benchmark
+    public byte[] plan() {
+        return new Planner(mission).plan();
+    }
+}
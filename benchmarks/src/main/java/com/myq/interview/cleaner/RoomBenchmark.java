@@ -0,0 +1,68 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.data.Position;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Room#isObstacle} on random cells, including ones just out of the room.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.properties")
+@State(Scope.Benchmark)
+public class RoomBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"100", "1000", "5000"})
+    public int size;
+
+    @Param({"0.0", "0.3"})
+    public double density;
+
+    private Room room;
+    private final int[] xs = new int[PROBES];
+    private final int[] ys = new int[PROBES];
+    private final Position[] positions = new Position[PROBES];
+
+    @Setup
+    public void setUp() throws IOException {
+        room = new Room(Workloads.input(size, density, 0));
+        Random random = new Random(Workloads.SEED);
+        for (int i = 0; i < PROBES; i++) {
+            xs[i] = random.nextInt(size + 2) - 1;
+            ys[i] = random.nextInt(size + 2) - 1;
+            positions[i] = new Position(xs[i], ys[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int isObstacleInts() {
+        int obstacles = 0;
+        for (int i = 0; i < PROBES; i++) {
+            if (room.isObstacle(xs[i], ys[i])) {
+                obstacles++;
+            }
+        }
+        return obstacles;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int isObstaclePosition() {
+        int obstacles = 0;
+        for (Position position : positions) {
+            if (room.isObstacle(position)) {
+                obstacles++;
+            }
+        }
+        return obstacles;
+    }
+}
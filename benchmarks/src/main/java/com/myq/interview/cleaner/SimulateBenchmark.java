@@ -0,0 +1,44 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.data.Output;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Robot#work()} on rooms without columns and on rooms where the robot keeps bumping into them (back off heavy).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.properties")
+@State(Scope.Benchmark)
+public class SimulateBenchmark {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    @Param({"0.0", "0.3"})
+    public double density;
+
+    @Param({"10000", "1000000"})
+    public int commands;
+
+    private Mission mission;
+
+    @Setup
+    public void setUp() throws IOException {
+        mission = StreamingInputReader.read(Workloads.write(size, density, commands));
+    }
+
+    /**
+     * The room (with its derived tables) is shared by all the runs, the same way the room cache shares it among jobs;
+     * every robot starts with a fresh coverage of its own.
+     */
+    @Benchmark
+    public Output work() {
+        return new Robot(mission).work();
+    }
+}
@@ -0,0 +1,46 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myq.interview.cleaner.data.Input;
+import com.myq.interview.cleaner.gen.InputGenerator;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Seeded, reproducible inputs for the benchmarks; the same ones cleaning_robot_gen produces for the same settings.
+ */
+final class Workloads {
+
+    static final long SEED = 42;
+
+    private Workloads() {
+    }
+
+    /**
+     * @param size           width and height of the room
+     * @param columnDensity  share of columns among the cells; the more columns, the more back off strategies
+     * @param commandCount   number of commands
+     */
+    static InputGenerator generator(int size, double columnDensity, int commandCount) {
+        return new InputGenerator()
+                .seed(SEED)
+                .size(size, size)
+                .densities(0, columnDensity)
+                .start(size / 2, size / 2, Robot.DIRECTION_N)
+                .commands(commandCount)
+                .weights(2, 1, 1, 5, 1)     // mostly moving ahead, sometimes turning, cleaning or going back
+                .battery(commandCount * Robot.CLEAN_CONSUMPTION * 4);    // enough for the back off strategies too
+    }
+
+    static File write(int size, double columnDensity, int commandCount) throws IOException {
+        File file = File.createTempFile("rumba-bench-", ".json");
+        file.deleteOnExit();
+        generator(size, columnDensity, commandCount).write(file);
+        return file;
+    }
+
+    static Input input(int size, double columnDensity, int commandCount) throws IOException {
+        return new ObjectMapper().readValue(write(size, columnDensity, commandCount), Input.class);
+    }
+}
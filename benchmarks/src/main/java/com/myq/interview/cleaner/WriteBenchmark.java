@@ -0,0 +1,45 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.data.Output;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InputOutputParser#writeOutput(Output)} of the result of a simulation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-bench.properties")
+@State(Scope.Benchmark)
+public class WriteBenchmark {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    @Param({"0.0", "0.3"})
+    public double density;
+
+    @Param({"10000", "1000000"})
+    public int commands;
+
+    private InputOutputParser parser;
+    private Output output;
+
+    @Setup
+    public void setUp() throws IOException {
+        output = new Robot(Workloads.input(size, density, commands)).work();
+        File outputFile = File.createTempFile("rumba-bench-", ".json");
+        outputFile.deleteOnExit();
+        parser = new InputOutputParser(null, outputFile);
+    }
+
+    @Benchmark
+    public void writeOutput() throws IOException {
+        parser.writeOutput(output);
+    }
+}
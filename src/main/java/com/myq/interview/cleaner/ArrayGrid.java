@@ -0,0 +1,35 @@
+package com.myq.interview.cleaner;
+
+/**
+ * One byte per cell on the heap.
+ */
+final class ArrayGrid implements Grid {
+
+    private final int width;
+    private final int height;
+    private final byte[] cells;
+
+    ArrayGrid(int width, int height, byte[] cells) {
+        if (cells.length != width * height) {
+            throw new IllegalArgumentException(String.format("Expected %d x %d cells; got %d", width, height, cells.length));
+        }
+        this.width = width;
+        this.height = height;
+        this.cells = cells;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public byte getCell(int index) {
+        return cells[index];
+    }
+}
@@ -0,0 +1,113 @@
+package com.myq.interview.cleaner;
+
+/**
+ * Outcome of the back off strategies triggered on a cell with a facing, packed in a char: which strategy worked (if
+ * any) and, for each strategy that failed before it, how many moves it made before one got blocked. Everything else
+ * (the commands run, their cost, the cells moved to and where the robot ends) follows from that and the start, so
+ * rooms keep just the packed outcomes (see {@link Room#getBackoff(int, int, int)}) and robots replay them.
+ */
+final class Backoff {
+
+    static final char UNKNOWN = 0;          // not worked out yet; no outcome packs to it
+
+    private static final int STRATEGY_BITS = 3;     // index to Robot.BACKOFF_PROGRAMS + 1; NONE + 1 if none worked
+    private static final int MOVE_BITS = 2;         // moves of a failing strategy before the blocked one
+    private static final int NONE = Robot.BACKOFF_PROGRAMS.length;
+
+    static {
+        boolean fits = NONE + 1 < 1 << STRATEGY_BITS && STRATEGY_BITS + MOVE_BITS * NONE <= Character.SIZE;
+        for (byte[] program : Robot.BACKOFF_PROGRAMS) {
+            int moves = 0;
+            for (byte op : program) {
+                if (op == Robot.OP_ADVANCE || op == Robot.OP_BACK) {
+                    moves++;
+                }
+            }
+            fits &= moves <= 1 << MOVE_BITS;
+        }
+        if (!fits) {
+            throw new IllegalStateException("Back off outcomes do not fit in a char any more.");
+        }
+    }
+
+    private Backoff() {
+    }
+
+    /**
+     * Runs the strategies the same way the robot does, but without any battery.
+     */
+    static char compute(Room room, int x, int y, int facing) {
+        int outcome = 0;
+        for (int i = 0; i < Robot.BACKOFF_PROGRAMS.length; i++) {
+            int moves = 0;
+            boolean blocked = false;
+            for (byte op : Robot.BACKOFF_PROGRAMS[i]) {
+                if (op == Robot.OP_TURN_R || op == Robot.OP_TURN_L) {
+                    facing = turn(facing, op);
+                    continue;
+                }
+                int front = op == Robot.OP_ADVANCE ? Robot.GO_AHEAD : Robot.GO_BACK;
+                int nextX = x + Robot.DX[facing] * front;
+                int nextY = y + Robot.DY[facing] * front;
+                if (room.isObstacle(nextX, nextY)) {
+                    blocked = true;
+                    break;
+                }
+                x = nextX;
+                y = nextY;
+                moves++;
+            }
+            if (!blocked) {
+                return (char) (outcome | i + 1);
+            }
+            outcome |= moves << (STRATEGY_BITS + MOVE_BITS * i);
+        }
+        return (char) (outcome | NONE + 1);
+    }
+
+    static int turn(int facing, byte op) {
+        return (facing + (op == Robot.OP_TURN_R ? 1 : -1)) & (Robot.DIRECTION.length - 1);
+    }
+
+    /**
+     * @return index to Robot.BACKOFF_PROGRAMS of the strategy that worked; -1 if none did.
+     */
+    static int strategy(char outcome) {
+        int strategy = (outcome & (1 << STRATEGY_BITS) - 1) - 1;
+        return strategy == NONE ? -1 : strategy;
+    }
+
+    /**
+     * @return number of strategies run: the failing ones and the one that worked.
+     */
+    static int strategies(char outcome) {
+        int strategy = strategy(outcome);
+        return strategy >= 0 ? strategy + 1 : NONE;
+    }
+
+    /**
+     * @param strategy one of the failing strategies
+     * @return how many moves it made before the blocked one.
+     */
+    static int moves(char outcome, int strategy) {
+        return outcome >>> (STRATEGY_BITS + MOVE_BITS * strategy) & (1 << MOVE_BITS) - 1;
+    }
+
+    /**
+     * @return battery needed to run all the commands of the strategies, the blocked moves included.
+     */
+    static int cost(char outcome) {
+        int cost = 0;
+        int worked = strategy(outcome);
+        for (int i = 0, strategies = strategies(outcome); i < strategies; i++) {
+            int moves = i == worked ? Integer.MAX_VALUE : moves(outcome, i);
+            for (byte op : Robot.BACKOFF_PROGRAMS[i]) {
+                cost += Robot.CONSUMPTION[op];
+                if ((op == Robot.OP_ADVANCE || op == Robot.OP_BACK) && moves-- == 0) {
+                    break;      // the blocked one
+                }
+            }
+        }
+        return cost;
+    }
+}
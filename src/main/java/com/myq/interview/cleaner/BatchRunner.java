@@ -0,0 +1,260 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.myq.interview.cleaner.data.Output;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Runs many jobs in one JVM. A job goes through three stages (parse, simulate, write), each of them having its own
+ * thread pool, so that all cores are busy with different jobs at once. The number of jobs in flight is bounded to keep
+ * memory in check.
+ * <p>
+ * Jobs are given either as a folder (every *.json file is an input; result goes to result_&lt;name&gt;) or as a JSON
+ * lines manifest with one {"input": "...", "output": "..."} object per line. A failing job never stops the others;
+ * it is counted under the error code a single run would have exited with.
+ */
+public class BatchRunner {
+    private static final Logger log = LogManager.getLogger(BatchRunner.class);
+
+    public static final String OPTION = "--batch";
+    public static final String MANIFEST_SUFFIX = ".jsonl";
+    public static final String INPUT_SUFFIX = ".json";
+    public static final String RESULT_PREFIX = "result_";
+
+    private static final ObjectReader manifestReader = new ObjectMapper().readerFor(JsonNode.class);
+
+    private final File source;
+    private final File resultsFolder;
+    private final int threads;
+    private final boolean metricsSidecars;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLongArray failed = new AtomicLongArray(Main.ERR_INVALID_OUTPUT + 1);   // indexed by error code
+    private final AtomicLong commands = new AtomicLong();
+    private long firstFailedJob = Long.MAX_VALUE;
+    private int firstFailure;
+
+    BatchRunner(File source, File resultsFolder, int threads) {
+        this(source, resultsFolder, threads, false);
+    }
+
+    /**
+     * @param metricsSidecars write metrics of every job next to its result (see {@link JobMetrics#sidecarFor(File)})
+     */
+    BatchRunner(File source, File resultsFolder, int threads, boolean metricsSidecars) {
+        this.source = source;
+        this.resultsFolder = resultsFolder;
+        this.threads = threads;
+        this.metricsSidecars = metricsSidecars;
+        this.maxInFlight = 2 * threads;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * @param args optional {@value JobMetrics#OPTION}, source folder or manifest and the results folder
+     * @return null when the arguments are not valid.
+     */
+    public static BatchRunner parseArguments(String[] args) {
+        boolean metricsSidecars = args.length > 0 && JobMetrics.OPTION.equals(args[0]);
+        if (metricsSidecars) {
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        if (args.length != 2) {
+            log.error(String.format("Usage: %s %s [%s] <sources folder | manifest%s> <results folder>\nProvide exactly 2 parameters!", Main.APP_NAME, OPTION, JobMetrics.OPTION, MANIFEST_SUFFIX));
+            return null;
+        }
+        File source = new File(args[0]);
+        if (!source.exists()) {
+            log.error(String.format("The batch source (%s) does not exist; please, provide a valid path.", source.getAbsolutePath()));
+            return null;
+        }
+        if (source.isFile() && !source.getName().endsWith(MANIFEST_SUFFIX)) {
+            log.error(String.format("The batch source (%s) is neither a folder nor a %s manifest.", source.getAbsolutePath(), MANIFEST_SUFFIX));
+            return null;
+        }
+        File resultsFolder = new File(args[1]);
+        if (!resultsFolder.isDirectory() && !resultsFolder.mkdirs()) {
+            log.error(String.format("The results folder (%s) is not a folder and can't be created.", resultsFolder.getAbsolutePath()));
+            return null;
+        }
+        log.info(String.format("Batch source: %s", source.getAbsolutePath()));
+        log.info(String.format("Results folder: %s", resultsFolder.getAbsolutePath()));
+        return new BatchRunner(source, resultsFolder, Runtime.getRuntime().availableProcessors(), metricsSidecars);
+    }
+
+    /**
+     * Runs all the jobs and logs a summary.
+     *
+     * @return 0 if all jobs succeeded; otherwise error code of the first failed job (in the order of the source).
+     */
+    public int run() throws IOException, InterruptedException {
+        ExecutorService parsers = Executors.newFixedThreadPool(threads);
+        ExecutorService simulators = Executors.newFixedThreadPool(threads);
+        ExecutorService writers = Executors.newFixedThreadPool(threads);
+        long started = System.nanoTime();
+        long jobs = 0;
+        try {
+            if (source.isDirectory()) {
+                File[] inputs = source.listFiles((dir, name) -> name.endsWith(INPUT_SUFFIX));
+                Arrays.sort(inputs);
+                for (File input : inputs) {
+                    submit(new Job(jobs++, input, new File(resultsFolder, RESULT_PREFIX + input.getName()), metricsSidecars), parsers, simulators, writers);
+                }
+            } else {
+                try (BufferedReader reader = Files.newBufferedReader(source.toPath(), StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.trim().isEmpty()) {
+                            continue;
+                        }
+                        Job job = parseManifestLine(jobs++, line);
+                        if (job != null) {
+                            submit(job, parsers, simulators, writers);
+                        }
+                    }
+                }
+            }
+            inFlight.acquire(maxInFlight);  // wait for the last jobs
+        } finally {
+            parsers.shutdown();
+            simulators.shutdown();
+            writers.shutdown();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info(String.format("Batch done: %d jobs in %.3f s (%.1f jobs/s; %.0f commands/s); succeeded: %d; failed: %d (invalid parameters: %d, invalid input: %d, invalid output: %d)",
+                jobs, seconds, jobs / seconds, commands.get() / seconds, succeeded.get(),
+                jobs - succeeded.get(), failed.get(Main.ERR_INVALID_PARAMETERS), failed.get(Main.ERR_INVALID_INPUT), failed.get(Main.ERR_INVALID_OUTPUT)));
+        log.info(RoomCache.getInstance());
+        return firstFailure;
+    }
+
+    private Job parseManifestLine(long sequence, String line) {
+        try {
+            JsonNode node = manifestReader.readValue(line);
+            String input = node.path("input").asText(null);
+            if (input == null) {
+                throw new IOException("No input given.");
+            }
+            File inputFile = resolve(source.getParentFile(), input);
+            String output = node.path("output").asText(null);
+            File outputFile = output != null ? resolve(resultsFolder, output) : new File(resultsFolder, RESULT_PREFIX + inputFile.getName());
+            return new Job(sequence, inputFile, outputFile, metricsSidecars);
+        } catch (IOException e) {
+            log.error(String.format("Invalid manifest line #%d: %s", sequence + 1, line), e);
+            failed(sequence, Main.ERR_INVALID_PARAMETERS);
+            return null;
+        }
+    }
+
+    private static File resolve(File folder, String path) {
+        File file = new File(path);
+        return file.isAbsolute() ? file : new File(folder, path);
+    }
+
+    private void submit(Job job, ExecutorService parsers, ExecutorService simulators, ExecutorService writers) throws InterruptedException {
+        inFlight.acquire();
+        CompletableFuture.runAsync(job::parse, parsers)
+                .thenRunAsync(job::simulate, simulators)
+                .thenRunAsync(job::write, writers)
+                .whenComplete((nothing, e) -> {
+                    try {
+                        if (e == null) {
+                            succeeded.incrementAndGet();
+                            commands.addAndGet(job.commands);
+                        } else {
+                            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                            failed(job.sequence, cause instanceof JobException ? ((JobException) cause).code : Main.ERR_INVALID_INPUT);
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+    }
+
+    private synchronized void failed(long sequence, int code) {
+        failed.incrementAndGet(code);
+        if (sequence < firstFailedJob) {
+            firstFailedJob = sequence;
+            firstFailure = code;
+        }
+    }
+
+    /**
+     * One input file to be turned into one output file; carries the intermediate results between the stages.
+     */
+    private static class Job {
+        private final long sequence;
+        private final File inputFile;
+        private final InputOutputParser parser;
+        private Mission mission;
+        private Output output;
+        private long commands;
+
+        Job(long sequence, File inputFile, File outputFile, boolean metricsSidecar) {
+            this.sequence = sequence;
+            this.inputFile = inputFile;
+            this.parser = new InputOutputParser(inputFile, outputFile, null, InputOutputParser.OutputFormat.JSON, metricsSidecar, null, null, null);
+        }
+
+        void parse() {
+            try {
+                mission = parser.readInput(RoomCache.getInstance());
+                commands = mission.getProgram().length;
+            } catch (IOException e) {
+                log.error(String.format("Can't parse the input JSON from %s.", inputFile), e);
+                throw new JobException(Main.ERR_INVALID_INPUT, e);
+            }
+        }
+
+        void simulate() {
+            try {
+                output = new Robot(mission, parser.getMetrics()).work();
+                mission = null;     // let the room go as soon as possible
+            } catch (RuntimeException e) {
+                log.error(String.format("Can't simulate the input from %s.", inputFile), e);
+                throw new JobException(Main.ERR_INVALID_INPUT, e);
+            }
+        }
+
+        void write() {
+            try {
+                parser.writeOutput(output);
+                output = null;
+            } catch (IOException e) {
+                log.error(String.format("Can't write the output JSON for %s", inputFile), e);
+                throw new JobException(Main.ERR_INVALID_OUTPUT, e);
+            }
+        }
+    }
+
+    /**
+     * Failure of a job stage together with the error code it maps to.
+     */
+    private static class JobException extends RuntimeException {
+        private final int code;
+
+        JobException(int code, Throwable cause) {
+            super(cause);
+            this.code = code;
+        }
+    }
+}
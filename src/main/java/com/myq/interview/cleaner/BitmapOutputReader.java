@@ -0,0 +1,144 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.data.Output;
+import com.myq.interview.cleaner.data.RobotPosition;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * Loads a bitmap output (see {@link BitmapOutputWriter}) with plain java.io; no Jackson needed.
+ * <p>
+ * Layout (big-endian): magic "RUMO", version, flags (1 = run-length compressed), width, height, final X, final Y
+ * (ints), final facing (byte; index to N, E, S, W or -1), battery (int); then the visited and the cleaned bitmaps.
+ * A bitmap is either (width * height + 63) / 64 longs with cell y * width + x at bit (index % 64) of long
+ * (index / 64), or its run-length compressed form.
+ */
+public class BitmapOutputReader {
+
+    private int width;
+    private int height;
+    private int finalX;
+    private int finalY;
+    private String facing;
+    private int battery;
+    private long[] visited;
+    private long[] cleaned;
+
+    private BitmapOutputReader() {
+    }
+
+    public static BitmapOutputReader read(File file) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            return read(inputStream);
+        }
+    }
+
+    public static BitmapOutputReader read(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != BitmapOutputWriter.MAGIC) {
+            throw new IOException("Not a bitmap output: no magic.");
+        }
+        int version = in.readInt();
+        if (version != BitmapOutputWriter.VERSION) {
+            throw new IOException(String.format("Unsupported version of bitmap output: %d.", version));
+        }
+        boolean rle = (in.readInt() & BitmapOutputWriter.FLAG_RLE) != 0;
+        BitmapOutputReader output = new BitmapOutputReader();
+        output.width = in.readInt();
+        output.height = in.readInt();
+        output.finalX = in.readInt();
+        output.finalY = in.readInt();
+        byte facing = in.readByte();
+        output.facing = facing >= 0 && facing < Robot.DIRECTION.length ? Robot.DIRECTION[facing] : null;
+        output.battery = in.readInt();
+        int size = output.width * output.height;
+        output.visited = rle ? readRuns(in, size) : readBits(in, size);
+        output.cleaned = rle ? readRuns(in, size) : readBits(in, size);
+        return output;
+    }
+
+    private static long[] readBits(DataInputStream in, int size) throws IOException {
+        long[] bits = new long[(size + 63) >>> 6];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = in.readLong();
+        }
+        return bits;
+    }
+
+    static long[] readRuns(DataInputStream in, int size) throws IOException {
+        long[] bits = new long[(size + 63) >>> 6];
+        int from = 0;
+        boolean set = false;
+        while (from < size) {
+            int run = readVarInt(in);
+            if (run > size - from) {
+                throw new IOException(String.format("Run of %d cells overflows the bitmap of %d cells.", run, size));
+            }
+            if (set && run > 0) {
+                Coverage.setRange(bits, from, from + run - 1);
+            }
+            from += run;
+            set = !set;
+        }
+        return bits;
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed run length.");
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getFinalX() {
+        return finalX;
+    }
+
+    public int getFinalY() {
+        return finalY;
+    }
+
+    public String getFacing() {
+        return facing;
+    }
+
+    public int getBattery() {
+        return battery;
+    }
+
+    public boolean isVisited(int x, int y) {
+        int index = y * width + x;
+        return (visited[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public boolean isCleaned(int x, int y) {
+        int index = y * width + x;
+        return (cleaned[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * @return the same output as the one written; cell sets are views of the bitmaps.
+     */
+    public Output toOutput() {
+        return new Output(new Coverage.CellSet(visited, width, height), new Coverage.CellSet(cleaned, width, height),
+                new RobotPosition(finalX, finalY, facing), battery);
+    }
+}
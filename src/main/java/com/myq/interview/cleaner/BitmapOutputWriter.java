@@ -0,0 +1,119 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.data.Output;
+import com.myq.interview.cleaner.data.Position;
+import com.myq.interview.cleaner.data.RobotPosition;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Writes the output as two bitmaps instead of JSON objects; see {@link BitmapOutputReader} for the layout.
+ * With run-length compression, each bitmap is a sequence of varints: lengths of alternating runs of clear and set
+ * cells, starting with a (possibly empty) run of clear ones.
+ */
+public class BitmapOutputWriter {
+
+    static final int MAGIC = 0x52554d4f;    // "RUMO"
+    static final int VERSION = 1;
+    static final int FLAG_RLE = 1;
+    static final byte NO_FACING = -1;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private BitmapOutputWriter() {
+    }
+
+    public static void write(Output output, File file, boolean rle) throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file.toPath()), BUFFER_SIZE)) {
+            write(output, outputStream, rle);
+        }
+    }
+
+    /**
+     * Writes the output to the given stream; the stream is flushed, but left open.
+     */
+    public static void write(Output output, OutputStream outputStream, boolean rle) throws IOException {
+        Coverage.CellSet[] sets = toCellSets(output.getVisited(), output.getCleaned());
+        Coverage.CellSet visited = sets[0];
+        Coverage.CellSet cleaned = sets[1];
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(rle ? FLAG_RLE : 0);
+        out.writeInt(visited.getWidth());
+        out.writeInt(visited.getHeight());
+        RobotPosition position = output.getFinal();
+        out.writeInt(position.getX());
+        out.writeInt(position.getY());
+        Integer facing = Robot.DIRECTION_MAP.get(position.getFacing());
+        out.writeByte(facing != null ? facing : NO_FACING);
+        out.writeInt(output.getBattery());
+        int size = visited.getWidth() * visited.getHeight();
+        for (Coverage.CellSet cells : new Coverage.CellSet[]{visited, cleaned}) {
+            if (rle) {
+                writeRuns(out, cells.getBits(), size);
+            } else {
+                long[] bits = cells.getBits();
+                for (int i = 0, words = (size + 63) >>> 6; i < words; i++) {
+                    out.writeLong(bits[i]);
+                }
+            }
+        }
+        out.flush();
+    }
+
+    static void writeRuns(DataOutputStream out, long[] bits, int size) throws IOException {
+        int from = 0;
+        while (from < size) {
+            int set = Coverage.nextSetBit(bits, from);
+            set = set < 0 || set > size ? size : set;
+            writeVarInt(out, set - from);
+            if (set == size) {
+                break;
+            }
+            int clear = Math.min(Coverage.nextClearBit(bits, set), size);
+            writeVarInt(out, clear - set);
+            from = clear;
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Coverage backed sets are used as they are; other sets are packed into bitmaps just large enough for both sets.
+     */
+    private static Coverage.CellSet[] toCellSets(Set<Position> visited, Set<Position> cleaned) {
+        if (visited instanceof Coverage.CellSet && cleaned instanceof Coverage.CellSet) {
+            return new Coverage.CellSet[]{(Coverage.CellSet) visited, (Coverage.CellSet) cleaned};
+        }
+        int width = 0;
+        int height = 0;
+        for (Set<Position> cells : Arrays.asList(visited, cleaned)) {
+            for (Position position : cells) {
+                width = Math.max(width, position.getX() + 1);
+                height = Math.max(height, position.getY() + 1);
+            }
+        }
+        Coverage coverage = new Coverage(width, height);
+        for (Position position : visited) {
+            coverage.visit(position.getY() * width + position.getX());
+        }
+        for (Position position : cleaned) {
+            coverage.clean(position.getY() * width + position.getX());
+        }
+        return new Coverage.CellSet[]{(Coverage.CellSet) coverage.getVisited(), (Coverage.CellSet) coverage.getCleaned()};
+    }
+}
@@ -0,0 +1,179 @@
+package com.myq.interview.cleaner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Snapshot of a running robot: position, facing, battery, index of the next command and what has been visited and
+ * cleaned so far. A robot created from a checkpoint continues exactly where the snapshot was taken, so its output is
+ * the same as the one of an uninterrupted run; more commands may be appended to the input in the meantime.
+ * <p>
+ * Layout (big-endian): magic "RUMC", version, room width and height, X, Y, facing, battery, index of the next command,
+ * halted flag (1 when the robot got stuck or ran out of energy; it never moves again then), CRC-32 of the commands
+ * run so far (ints); then the visited and the cleaned bitmaps, run-length compressed the same way as in
+ * {@link BitmapOutputWriter}.
+ */
+public class Checkpoint {
+
+    static final int MAGIC = 0x52554d43;    // "RUMC"
+    static final int VERSION = 1;
+
+    public static final String OPTION = "--checkpoint";
+    public static final String RESUME_OPTION = "--resume";
+    public static final String INTERVAL_PROPERTY = "rumba.checkpoint.interval";
+    static final int DEFAULT_INTERVAL = 10_000_000;     // commands
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final int width;
+    private final int height;
+    private final int x;
+    private final int y;
+    private final int facing;
+    private final int battery;
+    private final int next;
+    private final boolean halted;
+    private final int commandsCrc;
+    private final long[] visited;
+    private final long[] cleaned;
+
+    Checkpoint(int width, int height, int x, int y, int facing, int battery, int next, boolean halted, int commandsCrc,
+               long[] visited, long[] cleaned) {
+        this.width = width;
+        this.height = height;
+        this.x = x;
+        this.y = y;
+        this.facing = facing;
+        this.battery = battery;
+        this.next = next;
+        this.halted = halted;
+        this.commandsCrc = commandsCrc;
+        this.visited = visited;
+        this.cleaned = cleaned;
+    }
+
+    /**
+     * @return number of commands between two checkpoints; see {@value #INTERVAL_PROPERTY}.
+     */
+    public static int getInterval() {
+        return Math.max(1, Integer.getInteger(INTERVAL_PROPERTY, DEFAULT_INTERVAL));
+    }
+
+    public static Checkpoint read(File file) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE)) {
+            DataInputStream in = new DataInputStream(inputStream);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a checkpoint: no magic.");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(String.format("Unsupported version of checkpoint: %d.", version));
+            }
+            int width = in.readInt();
+            int height = in.readInt();
+            int x = in.readInt();
+            int y = in.readInt();
+            int facing = in.readInt();
+            int battery = in.readInt();
+            int next = in.readInt();
+            boolean halted = in.readInt() != 0;
+            int commandsCrc = in.readInt();
+            if (width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE || facing < 0 || facing >= Robot.DIRECTION.length || next < 0) {
+                throw new IOException("Corrupted checkpoint header.");
+            }
+            long[] visited = BitmapOutputReader.readRuns(in, width * height);
+            long[] cleaned = BitmapOutputReader.readRuns(in, width * height);
+            return new Checkpoint(width, height, x, y, facing, battery, next, halted, commandsCrc, visited, cleaned);
+        }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file first and then moves it over the given one, so that a crash while
+     * writing leaves the previous checkpoint intact.
+     */
+    public void write(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temp.toPath()), BUFFER_SIZE)) {
+            DataOutputStream out = new DataOutputStream(outputStream);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(x);
+            out.writeInt(y);
+            out.writeInt(facing);
+            out.writeInt(battery);
+            out.writeInt(next);
+            out.writeInt(halted ? 1 : 0);
+            out.writeInt(commandsCrc);
+            BitmapOutputWriter.writeRuns(out, visited, width * height);
+            BitmapOutputWriter.writeRuns(out, cleaned, width * height);
+            out.flush();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * @return index to Robot.DIRECTION
+     */
+    public int getFacing() {
+        return facing;
+    }
+
+    public int getBattery() {
+        return battery;
+    }
+
+    /**
+     * @return index of the first command not run yet.
+     */
+    public int getNext() {
+        return next;
+    }
+
+    /**
+     * @return true if the robot got stuck or ran out of energy; no further command is run then.
+     */
+    public boolean isHalted() {
+        return halted;
+    }
+
+    /**
+     * @return CRC-32 of the commands before {@link #getNext()}; a resumed input must start with the same ones.
+     */
+    int getCommandsCrc() {
+        return commandsCrc;
+    }
+
+    long[] getVisited() {
+        return visited;
+    }
+
+    long[] getCleaned() {
+        return cleaned;
+    }
+}
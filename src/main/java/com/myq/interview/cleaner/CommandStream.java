@@ -0,0 +1,228 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.myq.interview.cleaner.data.Output;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Runs commands as they arrive, one per line, on stdin or a named pipe; the room, the start and the battery are loaded
+ * once. Memory does not grow with the number of commands.
+ * <p>
+ * Progress is written as JSON lines. The first one is the whole state once the commands of the source (if any) have
+ * been run; it has the same shape as the output. Then there is one line per arrived command with just the changes:
+ * the command, newly visited and cleaned cells (left out when there are none), the position and the battery, e.g.
+ * {"command":"A","visited":[{"X":1,"Y":0}],"final":{"X":1,"Y":0,"facing":"E"},"battery":78}. An unknown command gets
+ * an "error" instead and is skipped. Once the robot gets stuck or runs out of energy (its line says "halted":true),
+ * the stream ends; that may be the first line already, when the commands of the source have halted the robot.
+ */
+public class CommandStream implements Robot.CoverageListener {
+    private static final Logger log = LogManager.getLogger(CommandStream.class);
+
+    public static final String OPTION = "--stream";
+    public static final String COMMANDS_OPTION = "--commands";
+
+    private static final JsonFactory factory = new JsonFactory();
+
+    private final Robot robot;
+    private final int width;
+    private final OutputStream deltas;
+    private int[] visited = new int[8];         // cells newly covered by the current command
+    private int visitedCount;
+    private int[] cleaned = new int[8];
+    private int cleanedCount;
+
+    /**
+     * @param deltas where to write the JSON lines; left open
+     */
+    public CommandStream(Mission mission, OutputStream deltas) {
+        this.robot = new Robot(mission);
+        this.width = mission.getRoom().getWidth();
+        this.deltas = deltas;
+        for (byte op : mission.getProgram()) {
+            if (!robot.step(op)) {
+                break;
+            }
+        }
+        robot.setListener(this);
+    }
+
+    /**
+     * Runs the commands until the end of the stream or until the robot halts. Lines are flushed whenever no more
+     * commands are ready to be read, so a slow producer sees every change right away while a fast one is not slowed
+     * down by flushing after each command.
+     *
+     * @return the final state.
+     */
+    public Output run(BufferedReader commands) throws IOException {
+        try (JsonGenerator generator = factory.createGenerator(deltas, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);     // lines are separated by new lines only
+            writeState(generator);
+            generator.flush();
+            long count = 0;
+            String line;
+            while (!robot.isHalted() && (line = commands.readLine()) != null) {
+                String command = line.trim();
+                if (command.isEmpty()) {
+                    continue;
+                }
+                byte op = Robot.compile(command);
+                generator.writeStartObject();
+                generator.writeStringField("command", command);
+                if (op == Robot.OP_UNKNOWN) {
+                    generator.writeStringField("error", String.format(InputOutputParser.MSG_UNKNOWN_COMMAND, command));
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                } else {
+                    count++;
+                    boolean running = robot.step(op);
+                    writeChanges(generator, running);
+                    if (!running) {
+                        log.info(String.format("Robot halted after %d streamed commands", count));
+                    }
+                }
+                if (!commands.ready()) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        } finally {
+            Metrics.getInstance().add(robot.getMetrics());
+        }
+        return robot.getOutput();
+    }
+
+    /**
+     * Writes the whole state the same way as {@link StreamingOutputWriter#write(Output, OutputStream)} does, but with
+     * the "halted" flag when the robot has halted.
+     */
+    private void writeState(JsonGenerator generator) throws IOException {
+        Output output = robot.getOutput();
+        generator.writeStartObject();
+        StreamingOutputWriter.writeCells(generator, "visited", output.getVisited());
+        StreamingOutputWriter.writeCells(generator, "cleaned", output.getCleaned());
+        generator.writeObjectFieldStart("final");
+        StreamingOutputWriter.writeCoordinates(generator, output.getFinal().getX(), output.getFinal().getY());
+        generator.writeStringField("facing", output.getFinal().getFacing());
+        generator.writeEndObject();
+        generator.writeNumberField("battery", output.getBattery());
+        if (robot.isHalted()) {
+            generator.writeBooleanField("halted", true);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private void writeChanges(JsonGenerator generator, boolean running) throws IOException {
+        writeCells(generator, "visited", visited, visitedCount);
+        writeCells(generator, "cleaned", cleaned, cleanedCount);
+        visitedCount = 0;
+        cleanedCount = 0;
+        Output output = robot.getOutput();
+        generator.writeObjectFieldStart("final");
+        generator.writeNumberField("X", output.getFinal().getX());
+        generator.writeNumberField("Y", output.getFinal().getY());
+        generator.writeStringField("facing", output.getFinal().getFacing());
+        generator.writeEndObject();
+        generator.writeNumberField("battery", output.getBattery());
+        if (!running) {
+            generator.writeBooleanField("halted", true);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private void writeCells(JsonGenerator generator, String name, int[] cells, int count) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        generator.writeArrayFieldStart(name);
+        for (int i = 0; i < count; i++) {
+            generator.writeStartObject();
+            generator.writeNumberField("X", cells[i] % width);
+            generator.writeNumberField("Y", cells[i] / width);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    @Override
+    public void visited(int index) {
+        if (visitedCount == visited.length) {
+            visited = Arrays.copyOf(visited, visitedCount << 1);
+        }
+        visited[visitedCount++] = index;
+    }
+
+    @Override
+    public void cleaned(int index) {
+        if (cleanedCount == cleaned.length) {
+            cleaned = Arrays.copyOf(cleaned, cleanedCount << 1);
+        }
+        cleaned[cleanedCount++] = index;
+    }
+
+    /**
+     * Runs the stream mode from the command line.
+     *
+     * @param args options and files following {@value #OPTION}
+     * @return 0 on success; otherwise one of Main.ERR_*.
+     */
+    static int run(String[] args) {
+        File mapFile = null;
+        File commandsFile = null;
+        int options = 0;
+        while (options + 1 < args.length && args[options].startsWith("--")) {
+            String option = args[options++];
+            String value = args[options++];
+            if (RoomFile.OPTION.equals(option)) {
+                mapFile = new File(value);
+            } else if (COMMANDS_OPTION.equals(option)) {
+                commandsFile = new File(value);
+            } else {
+                log.error(String.format("Unknown option: %s", option));
+                return Main.ERR_INVALID_PARAMETERS;
+            }
+        }
+        args = Arrays.copyOfRange(args, options, args.length);
+        if (args.length != 2) {
+            log.error(String.format("Usage: %s %s [%s <room.bin>] [%s <file | pipe>] <source.json> <deltas.jsonl>\nProvide exactly 2 parameters!",
+                    Main.APP_NAME, OPTION, RoomFile.OPTION, COMMANDS_OPTION));
+            return Main.ERR_INVALID_PARAMETERS;
+        }
+        File inputFile = new File(args[0]);
+        File deltasFile = new File(args[1]);
+        Mission mission;
+        try {
+            mission = StreamingInputReader.read(inputFile, mapFile != null ? RoomFile.open(mapFile) : null);
+        } catch (IOException e) {
+            log.error(String.format("Can't parse the input JSON from %s.", inputFile), e);
+            return Main.ERR_INVALID_INPUT;
+        }
+        log.info(String.format("Streaming commands from %s; changes go to %s", commandsFile != null ? commandsFile : "stdin", deltasFile.getAbsolutePath()));
+        try (BufferedReader commands = commandsFile != null
+                ? Files.newBufferedReader(commandsFile.toPath(), StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(deltasFile), 1 << 16)) {    // may be a named pipe
+            new CommandStream(mission, out).run(commands);
+        } catch (IOException e) {
+            log.error(String.format("Can't stream the commands to %s", deltasFile), e);
+            return Main.ERR_INVALID_OUTPUT;
+        }
+        return 0;
+    }
+}
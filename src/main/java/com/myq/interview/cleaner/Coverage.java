@@ -0,0 +1,294 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.data.Position;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Tracks visited and cleaned cells of a room as bitsets keyed by the cell index (y * width + x).
+ * Since the index grows with Y first and X second, iterating the bits yields the same order as sorting by {@link Position}.
+ * <p>
+ * Not thread-safe; robots running at once on one room share a {@link SharedCoverage} instead. Robots in a tiled room
+ * keep a {@link TiledCoverage}.
+ */
+public class Coverage {
+
+    private final int width;
+    private final int height;
+    private final long[] visited;
+    private final long[] cleaned;
+
+    public Coverage(int width, int height) {
+        this(width, height, true);
+    }
+
+    /**
+     * @param allocate false for subclasses keeping the bits elsewhere; they override every method touching them
+     */
+    Coverage(int width, int height, boolean allocate) {
+        this.width = width;
+        this.height = height;
+        int words = allocate ? words(width, height) : 0;
+        this.visited = allocate ? new long[words] : null;
+        this.cleaned = allocate ? new long[words] : null;
+    }
+
+    /**
+     * @return coverage fit for the room's cells: kept in tiles for a tiled room (see {@link TiledCoverage}).
+     */
+    static Coverage of(Room room) {
+        return room.isTiled() ? new TiledCoverage(room.getWidth(), room.getHeight())
+                : new Coverage(room.getWidth(), room.getHeight());
+    }
+
+    /**
+     * Same as {@link #of(Room)}, continuing from the given bitmaps.
+     */
+    static Coverage of(Room room, long[] visited, long[] cleaned) {
+        return room.isTiled() ? new TiledCoverage(room.getWidth(), room.getHeight(), visited, cleaned)
+                : new Coverage(room.getWidth(), room.getHeight(), visited, cleaned);
+    }
+
+    static int words(int width, int height) {
+        return (int) (((long) width * height + 63) >>> 6);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Continues from the given bitmaps (e.g. of a {@link Checkpoint}); they are copied.
+     */
+    Coverage(int width, int height, long[] visited, long[] cleaned) {
+        this(width, height);
+        System.arraycopy(visited, 0, this.visited, 0, this.visited.length);
+        System.arraycopy(cleaned, 0, this.cleaned, 0, this.cleaned.length);
+    }
+
+    /**
+     * @return true if the cell has not been visited before.
+     */
+    public boolean visit(int index) {
+        return set(visited, index);
+    }
+
+    /**
+     * Marks a straight line of cells as visited.
+     *
+     * @param start index of the first cell
+     * @param step  index difference between two consecutive cells (1 or -1 for a row, +-width for a column)
+     * @param count number of cells
+     */
+    public void visit(int start, int step, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (step == 1 || step == -1) {
+            int end = start + step * (count - 1);
+            setRange(visited, Math.min(start, end), Math.max(start, end));
+        } else {
+            for (int i = 0, index = start; i < count; i++, index += step) {
+                visited[index >>> 6] |= 1L << index;
+            }
+        }
+    }
+
+    /**
+     * Sets all bits from the given index to the given index (both inclusive), a word at a time.
+     */
+    static void setRange(long[] bits, int from, int to) {
+        int first = from >>> 6;
+        int last = to >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> (63 - (to & 63));
+        if (first == last) {
+            bits[first] |= firstMask & lastMask;
+            return;
+        }
+        bits[first] |= firstMask;
+        for (int w = first + 1; w < last; w++) {
+            bits[w] = -1L;
+        }
+        bits[last] |= lastMask;
+    }
+
+    /**
+     * @return true if the cell has not been cleaned before.
+     */
+    public boolean clean(int index) {
+        return set(cleaned, index);
+    }
+
+    public boolean isVisited(int index) {
+        return (visited[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public boolean isCleaned(int index) {
+        return (cleaned[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static boolean set(long[] bits, int index) {
+        int word = index >>> 6;
+        long mask = 1L << index;    // shift distance is taken modulo 64
+        long old = bits[word];
+        bits[word] = old | mask;
+        return (old & mask) == 0;
+    }
+
+    /**
+     * @return sorted view of the visited cells; positions are created only while iterating.
+     */
+    public Set<Position> getVisited() {
+        return new CellSet(visited, width, height);
+    }
+
+    /**
+     * @return sorted view of the cleaned cells; positions are created only while iterating.
+     */
+    public Set<Position> getCleaned() {
+        return new CellSet(cleaned, width, height);
+    }
+
+    /**
+     * @return the visited bitmap itself; not to be modified.
+     */
+    long[] getVisitedBits() {
+        return visited;
+    }
+
+    /**
+     * @return the cleaned bitmap itself; not to be modified.
+     */
+    long[] getCleanedBits() {
+        return cleaned;
+    }
+
+    /**
+     * @return index of the first set bit at or after the given index; -1 if there is none.
+     */
+    static int nextSetBit(long[] bits, int from) {
+        int word = from >>> 6;
+        if (word >= bits.length) {
+            return -1;
+        }
+        long w = bits[word] & (-1L << from);
+        while (true) {
+            if (w != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(w);
+            }
+            if (++word == bits.length) {
+                return -1;
+            }
+            w = bits[word];
+        }
+    }
+
+    /**
+     * @return index of the first clear bit at or after the given index; bits past the end count as clear.
+     */
+    static int nextClearBit(long[] bits, int from) {
+        int word = from >>> 6;
+        if (word >= bits.length) {
+            return from;
+        }
+        long w = ~bits[word] & (-1L << from);
+        while (true) {
+            if (w != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(w);
+            }
+            if (++word == bits.length) {
+                return word << 6;
+            }
+            w = ~bits[word];
+        }
+    }
+
+    /**
+     * Read-only set of positions backed by a bitset.
+     */
+    static class CellSet extends AbstractSet<Position> {
+        private final long[] bits;
+        private final int width;
+        private final int height;
+
+        CellSet(long[] bits, int width, int height) {
+            this.bits = bits;
+            this.width = width;
+            this.height = height;
+        }
+
+        int getWidth() {
+            return width;
+        }
+
+        int getHeight() {
+            return height;
+        }
+
+        /**
+         * @return the bitset itself; not to be modified.
+         */
+        long[] getBits() {
+            return bits;
+        }
+
+        /**
+         * @return index of the first cell in the set at or after the given index; -1 if there is none.
+         */
+        int nextCell(int from) {
+            return nextSetBit(bits, from);
+        }
+
+        @Override
+        public Iterator<Position> iterator() {
+            return new Iterator<Position>() {
+                private int next = nextCell(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public Position next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    Position position = new Position(next % width, next / width);
+                    next = nextCell(next + 1);
+                    return position;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (long w : bits) {
+                size += Long.bitCount(w);
+            }
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Position)) {
+                return false;
+            }
+            Position p = (Position) o;
+            if (p.getX() == null || p.getY() == null || p.getX() < 0 || p.getX() >= width || p.getY() < 0) {
+                return false;
+            }
+            long index = (long) p.getY() * width + p.getX();
+            return index < (long) bits.length << 6 && (bits[(int) (index >>> 6)] & (1L << index)) != 0;
+        }
+    }
+}
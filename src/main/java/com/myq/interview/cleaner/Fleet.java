@@ -0,0 +1,207 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.myq.interview.cleaner.data.Output;
+import com.myq.interview.cleaner.data.Position;
+import com.myq.interview.cleaner.data.RobotPosition;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many robots at once on one room, each of them on its own thread with its own start, commands and battery.
+ * The room is shared as it is (it is immutable); what the robots visit and clean goes to one {@link SharedCoverage}.
+ * Robots do not see each other; they may stand on the same cell.
+ * <p>
+ * The result has the merged visited and cleaned cells and the final position and battery of every robot:
+ * {"visited":[...],"cleaned":[...],"robots":[{"final":{...},"battery":...},...]}; robots are in the order given.
+ */
+public class Fleet {
+    private static final Logger log = LogManager.getLogger(Fleet.class);
+
+    public static final String OPTION = "--fleet";
+
+    private static final JsonFactory factory = new JsonFactory();
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final List<Mission> missions;
+    private final SharedCoverage coverage;
+
+    /**
+     * @param missions all in the same room; rooms with the same cells are fine, the first one is used then
+     * @throws IllegalArgumentException when the rooms differ.
+     */
+    public Fleet(List<Mission> missions) {
+        if (missions.isEmpty()) {
+            throw new IllegalArgumentException("No robot given.");
+        }
+        Room room = missions.get(0).getRoom();
+        this.missions = new ArrayList<>(missions.size());
+        for (int i = 0; i < missions.size(); i++) {
+            Mission mission = missions.get(i);
+            if (!sameCells(room, mission.getRoom())) {
+                throw new IllegalArgumentException(String.format("Robot #%d is in another room than robot #0.", i));
+            }
+            this.missions.add(mission.getRoom() == room ? mission
+                    : new Mission(room, mission.getStart(), mission.getProgram(), mission.getBattery()));
+        }
+        this.coverage = new SharedCoverage(room.getWidth(), room.getHeight());
+    }
+
+    private static boolean sameCells(Room a, Room b) {
+        if (a == b) {
+            return true;
+        }
+        if (a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight()) {
+            return false;
+        }
+        for (int i = 0, size = a.getWidth() * a.getHeight(); i < size; i++) {
+            if (a.getCell(i) != b.getCell(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs all the robots to their end.
+     *
+     * @param threads at most that many robots run at once
+     * @return output of every robot; they all share the same merged cell sets, taken once all the robots are done.
+     */
+    public List<Output> run(int threads) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, missions.size()));
+        long started = System.nanoTime();
+        try {
+            List<Future<Robot>> futures = new ArrayList<>(missions.size());
+            for (Mission mission : missions) {
+                futures.add(pool.submit(() -> {
+                    Robot robot = new Robot(mission, new JobMetrics(), coverage);
+                    robot.run();        // not work(); its output would snapshot the shared coverage per robot
+                    return robot;
+                }));
+            }
+            List<Robot> robots = new ArrayList<>(futures.size());
+            for (Future<Robot> future : futures) {
+                robots.add(future.get());
+            }
+            Set<Position> visited = coverage.getVisited();
+            Set<Position> cleaned = coverage.getCleaned();
+            List<Output> outputs = new ArrayList<>(robots.size());
+            for (Robot robot : robots) {
+                outputs.add(new Output(visited, cleaned, robot.getPosition(), robot.getBattery()));
+            }
+            log.info(String.format("Fleet of %d robots done in %.3f s", missions.size(), (System.nanoTime() - started) / 1e9));
+            return outputs;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public SharedCoverage getCoverage() {
+        return coverage;
+    }
+
+    /**
+     * Writes the merged cells and the final state of every robot; see the class description.
+     *
+     * @param outputs as returned by {@link #run(int)}; their merged cell sets are written as they are
+     */
+    public void write(List<Output> outputs, File file) throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file.toPath()), BUFFER_SIZE);
+             JsonGenerator generator = factory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            StreamingOutputWriter.writeCells(generator, "visited", outputs.isEmpty() ? coverage.getVisited() : outputs.get(0).getVisited());
+            StreamingOutputWriter.writeCells(generator, "cleaned", outputs.isEmpty() ? coverage.getCleaned() : outputs.get(0).getCleaned());
+            generator.writeArrayFieldStart("robots");
+            for (Output output : outputs) {
+                RobotPosition position = output.getFinal();
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("final");
+                StreamingOutputWriter.writeCoordinates(generator, position.getX(), position.getY());
+                generator.writeStringField("facing", position.getFacing());
+                generator.writeEndObject();
+                generator.writeNumberField("battery", output.getBattery());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Runs the fleet mode from the command line.
+     *
+     * @param args options and files following {@value #OPTION}
+     * @return 0 on success; otherwise one of Main.ERR_*.
+     */
+    static int run(String[] args) {
+        File mapFile = null;
+        if (args.length > 1 && RoomFile.OPTION.equals(args[0])) {
+            mapFile = new File(args[1]);
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        if (args.length < 2) {
+            log.error(String.format("Usage: %s %s [%s <room.bin>] <robot.json>... <result.json>\nProvide at least 2 parameters!",
+                    Main.APP_NAME, OPTION, RoomFile.OPTION));
+            return Main.ERR_INVALID_PARAMETERS;
+        }
+        File outputFile = new File(args[args.length - 1]);
+        Room room = null;
+        if (mapFile != null) {
+            try {
+                room = RoomFile.open(mapFile);
+            } catch (IOException e) {
+                log.error(String.format("Can't load the binary map from %s.", mapFile), e);
+                return Main.ERR_INVALID_INPUT;
+            }
+        }
+        List<Mission> missions = new ArrayList<>(args.length - 1);
+        RoomCache rooms = new RoomCache(1, Long.MAX_VALUE);     // robots on the same map share one room
+        for (int i = 0; i < args.length - 1; i++) {
+            File inputFile = new File(args[i]);
+            try {
+                missions.add(StreamingInputReader.read(inputFile, room, rooms, new JobMetrics()));
+            } catch (IOException e) {
+                log.error(String.format("Can't parse the input JSON from %s.", inputFile), e);
+                return Main.ERR_INVALID_INPUT;
+            }
+        }
+        Fleet fleet;
+        List<Output> outputs;
+        try {
+            fleet = new Fleet(missions);
+            outputs = fleet.run(Runtime.getRuntime().availableProcessors());
+        } catch (IllegalArgumentException e) {
+            log.error(e.getMessage());
+            return Main.ERR_INVALID_INPUT;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Main.ERR_INVALID_INPUT;
+        }
+        try {
+            fleet.write(outputs, outputFile);
+        } catch (IOException e) {
+            log.error(String.format("Can't write the output JSON to %s", outputFile), e);
+            return Main.ERR_INVALID_OUTPUT;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,18 @@
+package com.myq.interview.cleaner;
+
+/**
+ * Read-only storage of a rectangular room's cell codes ({@link Room#NO_ROOM}, {@link Room#SPACE} or
+ * {@link Room#COLUMN}); cells are indexed row by row: index = y * width + x.
+ */
+public interface Grid {
+
+    int getWidth();
+
+    int getHeight();
+
+    byte getCell(int index);
+
+    default byte getCell(int x, int y) {
+        return getCell(y * getWidth() + x);
+    }
+}
@@ -2,6 +2,7 @@ package com.myq.interview.cleaner;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.myq.interview.cleaner.data.Input;
 import com.myq.interview.cleaner.data.Output;
 import com.myq.interview.cleaner.exc.InvalidInputException;
@@ -9,23 +10,136 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Arrays;
 
 public class InputOutputParser {
     private static final Logger log = LogManager.getLogger(InputOutputParser.class);
 
+    // validation messages; shared with StreamingInputReader
+    static final String MSG_NO_BATTERY = "No battery given.";
+    static final String MSG_NEGATIVE_BATTERY = "Robot's battery can't be negative. Now it is %d.";
+    static final String MSG_NO_COMMANDS = "No list of commands given.";
+    static final String MSG_NO_MAP = "No room map given.";
+    static final String MSG_NO_START = "No robot's starting position given.";
+    static final String MSG_NO_START_X = "Robot's starting X position not given.";
+    static final String MSG_NO_START_Y = "Robot's starting Y position not given.";
+    static final String MSG_START_OUT_OF_ROOM = "Robot can't stand out of the room; now it's on %d, %d.";
+    static final String MSG_INVALID_MAP_CHAR = " Invalid character in the map: '%s'.";
+    static final String MSG_INVALID_MAP = "Invalid room map.";
+    static final String MSG_RAGGED_MAP = "Invalid room map; row %d has %d cells, but the first row has %d.";
+    static final String MSG_UNKNOWN_FACING = "Unknown facing string: '%s'.";
+    static final String MSG_UNKNOWN_COMMAND = "Unknown command: '%s'.";
+    static final String MSG_INVALID_COMMANDS = "Invalid list of commands.";
+    static final String MSG_START_NOT_ON_SPACE = "Starting robot's position should be on '%s' but it is standing on '%s' instead.";
+    static final String MSG_INVALID_INPUT = "Invalid input data.";
+
+    public static final String FORMAT_OPTION = "--format";
+
+    /**
+     * Format of the output file.
+     */
+    public enum OutputFormat {
+        JSON, BITMAP, BITMAP_RLE;
+
+        /**
+         * @return the format as given on the command line; e.g. bitmap-rle.
+         */
+        String getName() {
+            return name().toLowerCase().replace('_', '-');
+        }
+
+        static OutputFormat forName(String name) {
+            for (OutputFormat format : values()) {
+                if (format.getName().equals(name)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
     private final File inputFile;
     private final File outputFile;
+    private final File mapFile;         // binary map; null when the map is in the input JSON
+    private final OutputFormat outputFormat;
+    private final boolean metricsSidecar;       // write the metrics next to the output
+    private final File traceFile;               // null unless tracing
+    private final File checkpointFile;          // null unless checkpointing
+    private final File resumeFile;              // checkpoint to continue from; null to run from the start
+    private final JobMetrics metrics = new JobMetrics();
 
     InputOutputParser(File inputFile, File outputFile) {
+        this(inputFile, outputFile, null, OutputFormat.JSON, false, null, null, null);
+    }
+
+    InputOutputParser(File inputFile, File outputFile, File mapFile, OutputFormat outputFormat, boolean metricsSidecar, File traceFile,
+                      File checkpointFile, File resumeFile) {
         this.inputFile = inputFile;
         this.outputFile = outputFile;
+        this.mapFile = mapFile;
+        this.outputFormat = outputFormat;
+        this.metricsSidecar = metricsSidecar;
+        this.traceFile = traceFile;
+        this.checkpointFile = checkpointFile;
+        this.resumeFile = resumeFile;
     }
 
     public static InputOutputParser parseArguments(String[] args) {
+        File mapFile = null;
+        OutputFormat outputFormat = OutputFormat.JSON;
+        boolean metricsSidecar = false;
+        File traceFile = null;
+        File checkpointFile = null;
+        File resumeFile = null;
+        int options = 0;
+        while (options < args.length && args[options].startsWith("--")) {
+            String option = args[options++];
+            if (JobMetrics.OPTION.equals(option)) {
+                metricsSidecar = true;
+                continue;
+            }
+            if (options == args.length) {
+                log.error(String.format("Missing value of %s", option));
+                return null;
+            }
+            String value = args[options++];
+            if (RoomFile.OPTION.equals(option)) {
+                mapFile = new File(value);
+                if (!mapFile.isFile()) {
+                    log.error(String.format("The binary map (%s) does not exist; please, provide a valid file path.", mapFile.getAbsolutePath()));
+                    return null;
+                }
+            } else if (StepRecorder.OPTION.equals(option)) {
+                traceFile = new File(value);
+            } else if (Checkpoint.OPTION.equals(option)) {
+                checkpointFile = new File(value);
+            } else if (Checkpoint.RESUME_OPTION.equals(option)) {
+                resumeFile = new File(value);
+                if (!resumeFile.isFile()) {
+                    log.error(String.format("The checkpoint (%s) does not exist; please, provide a valid file path.", resumeFile.getAbsolutePath()));
+                    return null;
+                }
+            } else if (FORMAT_OPTION.equals(option)) {
+                outputFormat = OutputFormat.forName(value);
+                if (outputFormat == null) {
+                    log.error(String.format("Unknown output format: %s; please, use one of json, bitmap or bitmap-rle.", value));
+                    return null;
+                }
+            } else {
+                log.error(String.format("Unknown option: %s", option));
+                return null;
+            }
+        }
+        if (traceFile != null && resumeFile != null) {
+            log.error(String.format("A resumed run can't be traced; please, use either %s or %s.", StepRecorder.OPTION, Checkpoint.RESUME_OPTION));
+            return null;
+        }
+        args = Arrays.copyOfRange(args, options, args.length);
         if (args.length != 2) {
-            log.error(String.format("Usage: %s <source.json> <result.json>\nProvide exactly 2 parameters!", Main.APP_NAME));
+            log.error(String.format("Usage: %s [%s <room.bin>] [%s json|bitmap|bitmap-rle] [%s] [%s <trace.bin>] [%s <checkpoint.bin>] [%s <checkpoint.bin>] <source.json> <result>\n   or: %s %s [%s] <sources folder | manifest%s> <results folder>\nProvide exactly 2 parameters!",
+                    Main.APP_NAME, RoomFile.OPTION, FORMAT_OPTION, JobMetrics.OPTION, StepRecorder.OPTION, Checkpoint.OPTION, Checkpoint.RESUME_OPTION,
+                    Main.APP_NAME, BatchRunner.OPTION, JobMetrics.OPTION, BatchRunner.MANIFEST_SUFFIX));
             return null;
         }
 
@@ -51,7 +165,65 @@ public class InputOutputParser {
 
         log.info(String.format("Input file: %s", inputFile.getAbsolutePath()));
         log.info(String.format("Output file: %s", outputFile.getAbsolutePath()));
-        return new InputOutputParser(inputFile, outputFile);
+        if (mapFile != null) {
+            log.info(String.format("Binary map: %s", mapFile.getAbsolutePath()));
+        }
+        if (outputFormat != OutputFormat.JSON) {
+            log.info(String.format("Output format: %s", outputFormat.getName()));
+        }
+        if (traceFile != null) {
+            log.info(String.format("Trace file: %s", traceFile.getAbsolutePath()));
+        }
+        if (checkpointFile != null) {
+            log.info(String.format("Checkpoint file: %s (every %d commands)", checkpointFile.getAbsolutePath(), Checkpoint.getInterval()));
+        }
+        if (resumeFile != null) {
+            log.info(String.format("Resuming from: %s", resumeFile.getAbsolutePath()));
+        }
+        return new InputOutputParser(inputFile, outputFile, mapFile, outputFormat, metricsSidecar, traceFile, checkpointFile, resumeFile);
+    }
+
+    File getInputFile() {
+        return inputFile;
+    }
+
+    File getOutputFile() {
+        return outputFile;
+    }
+
+    /**
+     * @return file to record the robot's steps to; null when not tracing.
+     */
+    File getTraceFile() {
+        return traceFile;
+    }
+
+    /**
+     * @return file to write checkpoints to; null when not checkpointing.
+     */
+    File getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    /**
+     * @return checkpoint to continue from; null to run from the start.
+     */
+    File getResumeFile() {
+        return resumeFile;
+    }
+
+    /**
+     * @return metrics of this job; the parser records parsing, validation and serialization time there.
+     */
+    public JobMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Data binding of the input; set up on first use only, as the runs read their input by {@link StreamingInputReader}.
+     */
+    private static class InputReader {
+        private static final ObjectReader reader = new ObjectMapper(new JsonFactory()).readerFor(Input.class);    // thread-safe; shared
     }
 
     /**
@@ -59,93 +231,136 @@ public class InputOutputParser {
      * @throws IOException when the input cannot be deserialized from JSON or is missing mandatory data.
      */
     public Input getInput() throws IOException {
-        ObjectMapper mapper = new ObjectMapper(new JsonFactory());
-        Input input = mapper.readValue(inputFile, Input.class);
-        verifyInputValidity(input);
+        long started = System.nanoTime();
+        Input input = InputReader.reader.readValue(inputFile);
+        long parsed = System.nanoTime();
+        metrics.addPhase(JobMetrics.PHASE_PARSE, parsed - started);
+        try {
+            verifyInputValidity(input);
+        } finally {
+            metrics.addPhase(JobMetrics.PHASE_VALIDATE, System.nanoTime() - parsed);
+        }
         return input;
     }
 
     /**
-     * Validates the input for validity.
+     * Reads the input file as a stream, packing the room and compiling the commands on the fly, so that neither
+     * the JSON tree nor the map of characters is ever held in memory. A binary map, when given, is memory mapped.
+     *
+     * @return validated input ready to be run by the robot.
+     * @throws IOException when the input cannot be deserialized from JSON or is missing mandatory data.
+     */
+    public Mission readInput() throws IOException {
+        return readInput(null);
+    }
+
+    /**
+     * Same as {@link #readInput()}, but a map in the JSON is looked up in the given cache.
+     *
+     * @param cache null to build the room without caching it
+     */
+    public Mission readInput(RoomCache cache) throws IOException {
+        long started = System.nanoTime();
+        long validation = metrics.getPhaseNanos(JobMetrics.PHASE_VALIDATE);
+        try {
+            return StreamingInputReader.read(inputFile, mapFile != null ? RoomFile.open(mapFile) : null, cache, metrics);
+        } finally {
+            validation = metrics.getPhaseNanos(JobMetrics.PHASE_VALIDATE) - validation;
+            metrics.addPhase(JobMetrics.PHASE_PARSE, System.nanoTime() - started - validation);
+        }
+    }
+
+    /**
+     * Validates the input for validity. Compiles the commands into {@link Input#getProgram()} on the way.
      *
      * @throws InvalidInputException if the input is not valid.
      */
     private void verifyInputValidity(Input input) throws InvalidInputException {
         try {
             if (input.getBattery() == null) {
-                throw new InvalidInputException("No battery given.");
+                throw new InvalidInputException(MSG_NO_BATTERY);
             }
             if (input.getBattery() < 0) {
-                throw new InvalidInputException(String.format("Robot's battery can't be negative. Now it is %d.", input.getBattery()));
+                throw new InvalidInputException(String.format(MSG_NEGATIVE_BATTERY, input.getBattery()));
             }
             if (input.getCommands() == null) {
-                throw new InvalidInputException("No list of commands given.");
+                throw new InvalidInputException(MSG_NO_COMMANDS);
             }
             if (input.getMap() == null) {
-                throw new InvalidInputException("No room map given.");
+                throw new InvalidInputException(MSG_NO_MAP);
             }
             if (input.getStart() == null) {
-                throw new InvalidInputException("No robot's starting position given.");
+                throw new InvalidInputException(MSG_NO_START);
             }
 
             Integer x = input.getStart().getX();
             if (x == null) {
-                throw new InvalidInputException("Robot's starting X position not given.");
+                throw new InvalidInputException(MSG_NO_START_X);
             }
             Integer y = input.getStart().getY();
             if (y == null) {
-                throw new InvalidInputException("Robot's starting Y position not given.");
+                throw new InvalidInputException(MSG_NO_START_Y);
             }
             if (y < 0 || y >= input.getMap().length || x < 0 || x >= input.getMap()[0].length) {
-                throw new InvalidInputException(String.format("Robot can't stand out of the room; now it's on %d, %d.", x, y));
+                throw new InvalidInputException(String.format(MSG_START_OUT_OF_ROOM, x, y));
             }
 
-            try {
-                for (Character[] lines : input.getMap()) {
-                    for (Character c : lines) {
-                        if (c != Room.NO_ROOM_NULL_CHAR && c != Room.SPACE_CHAR && c != Room.COLUMN_CHAR) {
-                            throw new InvalidInputException(String.format(" Invalid character in the map: '%s'.", c));
-                        }
-                    }
-                }
-            } catch (InvalidInputException e) {
-                throw e;
-            } catch (Exception e) {
-                throw new InvalidInputException("Invalid room map.", e);
+            String mapError = MapValidator.validate(input.getMap());
+            if (mapError != null) {
+                throw new InvalidInputException(mapError);
             }
             if (Robot.DIRECTION_MAP.get(input.getStart().getFacing()) == null) {
-                throw new InvalidInputException(String.format("Unknown facing string: '%s'.", input.getStart().getFacing()));
+                throw new InvalidInputException(String.format(MSG_UNKNOWN_FACING, input.getStart().getFacing()));
             }
             try {
-                for (String command : input.getCommands()) {
-                    if (!Robot.COMMAND_SET.contains(command)) {
-                        throw new InvalidInputException(String.format("Unknown command: '%s'.", command));
+                String[] commands = input.getCommands();
+                byte[] program = new byte[commands.length];
+                for (int i = 0; i < commands.length; i++) {
+                    program[i] = Robot.compile(commands[i]);
+                    if (program[i] == Robot.OP_UNKNOWN) {
+                        throw new InvalidInputException(String.format(MSG_UNKNOWN_COMMAND, commands[i]));
                     }
                 }
+                input.setProgram(program);
             } catch (InvalidInputException e) {
                 throw e;
             } catch (Exception e) {
-                throw new InvalidInputException("Invalid list of commands.", e);
+                throw new InvalidInputException(MSG_INVALID_COMMANDS, e);
             }
             Character c = input.getMap()[y][x];
             if (c != Room.SPACE_CHAR) {
-                throw new InvalidInputException(String.format("Starting robot's position should be on '%s' but it is standing on '%s' instead.", Room.SPACE_CHAR, c));
+                throw new InvalidInputException(String.format(MSG_START_NOT_ON_SPACE, Room.SPACE_CHAR, c));
             }
         } catch (InvalidInputException e) {
             throw e;
         } catch (Exception e) {
             // just in case
-            throw new InvalidInputException("Invalid input data.", e);
+            throw new InvalidInputException(MSG_INVALID_INPUT, e);
         }
     }
 
 
     /**
+     * Writes the output in the format chosen on the command line (JSON by default); then the metrics, if asked to.
+     *
      * @param output Object representation of the JSON file (output).
-     * @throws IOException when the output cannot be serialized to JSON.
+     * @throws IOException when the output cannot be serialized.
      */
     public void writeOutput(Output output) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.writeValue(new FileWriter(outputFile), output);
+        long started = System.nanoTime();
+        switch (outputFormat) {
+            case BITMAP:
+                BitmapOutputWriter.write(output, outputFile, false);
+                break;
+            case BITMAP_RLE:
+                BitmapOutputWriter.write(output, outputFile, true);
+                break;
+            default:
+                StreamingOutputWriter.write(output, outputFile);
+        }
+        metrics.addPhase(JobMetrics.PHASE_SERIALIZE, System.nanoTime() - started);
+        if (metricsSidecar) {
+            metrics.write(JobMetrics.sidecarFor(outputFile));
+        }
     }
 }
@@ -0,0 +1,150 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Counters and phase timings of a single job. They are plain fields, updated by one thread at a time (the robot
+ * counts while it works); the totals are added to the JVM-wide {@link Metrics} once per job.
+ */
+public class JobMetrics {
+
+    public static final int PHASE_PARSE = 0;
+    public static final int PHASE_VALIDATE = 1;
+    public static final int PHASE_SIMULATE = 2;
+    public static final int PHASE_SERIALIZE = 3;
+    static final String[] PHASES = {"parse", "validate", "simulate", "serialize"};
+
+    public static final String OPTION = "--metrics";
+    public static final String SIDECAR_SUFFIX = ".metrics.json";
+
+    private static final JsonFactory factory = new JsonFactory();
+
+    // indexed by opcode
+    final long[] commands = new long[Robot.COMMAND_ARR.length];
+    final long[] batterySpent = new long[Robot.COMMAND_ARR.length];
+    long blockedMoves;
+    long backoffTriggers;
+    // indexed as Robot.BACKOFF_STRATEGIES
+    final long[] backoffSuccesses = new long[Robot.BACKOFF_STRATEGIES.length];
+    long stuck;
+    final long[] phaseNanos = new long[PHASES.length];
+
+    /**
+     * Records how long the given phase took, here and in {@link Metrics}.
+     */
+    public void addPhase(int phase, long nanos) {
+        phaseNanos[phase] += nanos;
+        Metrics.getInstance().addPhase(phase, nanos);
+    }
+
+    public long getCommands(byte op) {
+        return commands[op];
+    }
+
+    public long getBatterySpent(byte op) {
+        return batterySpent[op];
+    }
+
+    public long getBlockedMoves() {
+        return blockedMoves;
+    }
+
+    public long getBackoffTriggers() {
+        return backoffTriggers;
+    }
+
+    /**
+     * @param strategy index to the back off strategies
+     */
+    public long getBackoffSuccesses(int strategy) {
+        return backoffSuccesses[strategy];
+    }
+
+    public long getStuck() {
+        return stuck;
+    }
+
+    public long getPhaseNanos(int phase) {
+        return phaseNanos[phase];
+    }
+
+    /**
+     * @return copy of the counters; phase timings are left out.
+     */
+    JobMetrics snapshot() {
+        JobMetrics snapshot = new JobMetrics();
+        System.arraycopy(commands, 0, snapshot.commands, 0, commands.length);
+        System.arraycopy(batterySpent, 0, snapshot.batterySpent, 0, batterySpent.length);
+        snapshot.blockedMoves = blockedMoves;
+        snapshot.backoffTriggers = backoffTriggers;
+        System.arraycopy(backoffSuccesses, 0, snapshot.backoffSuccesses, 0, backoffSuccesses.length);
+        snapshot.stuck = stuck;
+        return snapshot;
+    }
+
+    /**
+     * Counts whatever has been counted since the given snapshot the given number of times more; e.g. for passes of a
+     * periodic program that have been skipped.
+     */
+    void repeatSince(JobMetrics snapshot, long times) {
+        for (int op = 0; op < commands.length; op++) {
+            commands[op] += (commands[op] - snapshot.commands[op]) * times;
+            batterySpent[op] += (batterySpent[op] - snapshot.batterySpent[op]) * times;
+        }
+        blockedMoves += (blockedMoves - snapshot.blockedMoves) * times;
+        backoffTriggers += (backoffTriggers - snapshot.backoffTriggers) * times;
+        for (int i = 0; i < backoffSuccesses.length; i++) {
+            backoffSuccesses[i] += (backoffSuccesses[i] - snapshot.backoffSuccesses[i]) * times;
+        }
+        stuck += (stuck - snapshot.stuck) * times;
+    }
+
+    /**
+     * @return file the metrics of the given output go to.
+     */
+    public static File sidecarFor(File outputFile) {
+        return new File(outputFile.getPath() + SIDECAR_SUFFIX);
+    }
+
+    public void write(File file) throws IOException {
+        try (JsonGenerator generator = factory.createGenerator(file, JsonEncoding.UTF8)) {
+            generator.useDefaultPrettyPrinter();
+            generator.writeStartObject();
+            writeByCommand(generator, "commands", commands);
+            writeByCommand(generator, "batterySpent", batterySpent);
+            generator.writeNumberField("blockedMoves", blockedMoves);
+            generator.writeObjectFieldStart("backoff");
+            generator.writeNumberField("triggered", backoffTriggers);
+            generator.writeNumberField("stuck", stuck);
+            generator.writeArrayFieldStart("succeeded");
+            for (int i = 0; i < backoffSuccesses.length; i++) {
+                generator.writeStartObject();
+                generator.writeFieldName("strategy");
+                generator.writeArray(Robot.BACKOFF_STRATEGIES[i], 0, Robot.BACKOFF_STRATEGIES[i].length);
+                generator.writeNumberField("count", backoffSuccesses[i]);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeObjectFieldStart("phasesMillis");
+            for (int i = 0; i < PHASES.length; i++) {
+                generator.writeNumberField(PHASES[i], phaseNanos[i] / 1e6);
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeByCommand(JsonGenerator generator, String name, long[] values) throws IOException {
+        generator.writeObjectFieldStart(name);
+        for (int op = 0; op < values.length; op++) {
+            generator.writeNumberField(Robot.COMMAND_ARR[op], values[op]);
+        }
+        generator.writeEndObject();
+    }
+}
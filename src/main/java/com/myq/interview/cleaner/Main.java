@@ -1,11 +1,13 @@
 package com.myq.interview.cleaner;
 
-import com.myq.interview.cleaner.data.Input;
 import com.myq.interview.cleaner.data.Output;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 
 public class Main {
     public static final String APP_NAME = "cleaning_robot";
@@ -15,26 +17,106 @@ public class Main {
     public static final int ERR_INVALID_OUTPUT = 3;
 
     public static void main(String[] args) {
+        if (args.length > 0 && BatchRunner.OPTION.equals(args[0])) {
+            runBatch(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && CommandStream.OPTION.equals(args[0])) {
+            int result = CommandStream.run(Arrays.copyOfRange(args, 1, args.length));
+            if (result != 0) {
+                System.exit(result);
+            }
+            return;
+        }
+        if (args.length > 0 && Fleet.OPTION.equals(args[0])) {
+            int result = Fleet.run(Arrays.copyOfRange(args, 1, args.length));
+            if (result != 0) {
+                System.exit(result);
+            }
+            return;
+        }
+        if (args.length > 0 && Planner.OPTION.equals(args[0])) {
+            int result = Planner.run(Arrays.copyOfRange(args, 1, args.length));
+            if (result != 0) {
+                System.exit(result);
+            }
+            return;
+        }
         InputOutputParser parser = InputOutputParser.parseArguments(args);
         if (parser == null) {
             System.exit(ERR_INVALID_PARAMETERS);
         }
-        Input input = null;
+        Mission mission = null;
         try {
-            input = parser.getInput();
+            mission = parser.readInput();
         } catch (IOException e) {
-            log.error(String.format("Can't parse the input JSON from %s.", args[0]), e);
+            log.error(String.format("Can't parse the input JSON from %s.", parser.getInputFile()), e);
             System.exit(ERR_INVALID_INPUT);
         }
 
-        Robot robot = new Robot(input);
-        Output output = robot.work();
+        Robot robot = null;
+        try {
+            robot = parser.getResumeFile() == null ? new Robot(mission, parser.getMetrics())
+                    : new Robot(mission, parser.getMetrics(), Checkpoint.read(parser.getResumeFile()));
+        } catch (IOException | IllegalArgumentException e) {
+            log.error(String.format("Can't resume from the checkpoint %s.", parser.getResumeFile()), e);
+            System.exit(ERR_INVALID_INPUT);
+        }
+        if (parser.getCheckpointFile() != null) {
+            robot.setCheckpoints(parser.getCheckpointFile(), Checkpoint.getInterval());
+        }
+        Output output = null;
+        try {
+            output = work(robot, mission, parser.getTraceFile());
+        } catch (IOException e) {
+            log.error(String.format("Can't write the trace or the checkpoint of %s", parser.getInputFile()), e);
+            System.exit(ERR_INVALID_OUTPUT);
+        }
 
         try {
             parser.writeOutput(output);
         } catch (IOException e) {
-            log.error(String.format("Can't write the output JSON to %s", args[1]), e);
+            log.error(String.format("Can't write the output JSON to %s", parser.getOutputFile()), e);
             System.exit(ERR_INVALID_OUTPUT);
         }
     }
+
+    /**
+     * Runs the robot; records its steps to the trace file, if given.
+     */
+    private static Output work(Robot robot, Mission mission, File traceFile) throws IOException {
+        if (traceFile == null) {
+            try {
+                return robot.work();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        try (StepRecorder recorder = new StepRecorder(traceFile, mission)) {
+            robot.setRecorder(recorder);
+            return robot.work();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void runBatch(String[] args) {
+        BatchRunner runner = BatchRunner.parseArguments(args);
+        if (runner == null) {
+            System.exit(ERR_INVALID_PARAMETERS);
+        }
+        int result;
+        try {
+            result = runner.run();
+        } catch (IOException e) {
+            log.error(String.format("Can't read the batch source %s.", args[0]), e);
+            result = ERR_INVALID_PARAMETERS;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = ERR_INVALID_PARAMETERS;
+        }
+        if (result != 0) {
+            System.exit(result);
+        }
+    }
 }
@@ -0,0 +1,128 @@
+package com.myq.interview.cleaner;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static com.myq.interview.cleaner.InputOutputParser.*;
+
+/**
+ * Validates maps. Binary maps are checked a word at a time, large ones in parallel on the common fork/join pool: the
+ * words are split into ranges, every range finds its own first invalid cell and the leftmost one wins, so the reported
+ * cell is always the first one, no matter how the work was split.
+ * <p>
+ * Maps of the JSON are checked as they are read (see {@link StreamingInputReader}); only the data binding path still
+ * checks a whole map of characters here, row by row.
+ */
+final class MapValidator {
+
+    private static final int MIN_WORDS_PER_TASK = 1 << 16;
+    private static final long LOW_BITS = 0x5555555555555555L;      // low bit of every 2-bit cell
+
+    private MapValidator() {
+    }
+
+    /**
+     * Checks the rows of a map read by data binding: a row must not be null, must have the same length as the first
+     * one and must consist of valid characters only.
+     *
+     * @return message of the first problem; null if the map is valid.
+     */
+    static String validate(Character[][] map) {
+        for (int y = 0; y < map.length; y++) {
+            String error = validateRow(map, y);
+            if (error != null) {
+                return error;
+            }
+        }
+        return null;
+    }
+
+    private static String validateRow(Character[][] map, int y) {
+        Character[] row = map[y];
+        if (row == null) {
+            return MSG_INVALID_MAP;
+        }
+        for (Character c : row) {
+            if (c != Room.NO_ROOM_NULL_CHAR && c != Room.SPACE_CHAR && c != Room.COLUMN_CHAR) {
+                return String.format(MSG_INVALID_MAP_CHAR, c);
+            }
+        }
+        if (row.length != map[0].length) {
+            return String.format(MSG_RAGGED_MAP, y, row.length, map[0].length);
+        }
+        return null;
+    }
+
+    /**
+     * Looks for the unused cell code 3 in 2-bit packed cells (see {@link PackedGrid}), 32 cells a word.
+     *
+     * @param packed packed cells starting at index 0
+     * @return index of the first invalid cell; -1 if all the cells are valid.
+     */
+    static long firstInvalidCell(ByteBuffer packed, long cells) {
+        ByteBuffer buffer = packed.duplicate().order(ByteOrder.LITTLE_ENDIAN);    // the first cell in the lowest bits
+        long words = (cells + 31) >>> 5;
+        WordsTask task = new WordsTask(buffer, cells, 0, words);
+        return words <= MIN_WORDS_PER_TASK ? task.compute() : ForkJoinPool.commonPool().invoke(task);
+    }
+
+    /**
+     * @return bits of the given word, that are set in the low bit of cells having code 3; cells past the end ignored.
+     */
+    private static long invalidBits(ByteBuffer buffer, long cells, long word) {
+        long offset = word << 3;
+        long w;
+        if (offset + 8 <= buffer.limit()) {
+            w = buffer.getLong((int) offset);
+        } else {
+            w = 0;
+            for (int i = 0; offset + i < buffer.limit(); i++) {
+                w |= (buffer.get((int) offset + i) & 0xffL) << (i << 3);
+            }
+        }
+        long bits = w & (w >>> 1) & LOW_BITS;
+        long remaining = cells - (word << 5);
+        if (remaining < 32) {
+            bits &= (1L << (remaining << 1)) - 1;
+        }
+        return bits;
+    }
+
+    private static class WordsTask extends RecursiveTask<Long> {
+        private final ByteBuffer buffer;
+        private final long cells;
+        private final long from;
+        private final long to;
+
+        WordsTask(ByteBuffer buffer, long cells, long from, long to) {
+            this.buffer = buffer;
+            this.cells = cells;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= MIN_WORDS_PER_TASK) {
+                for (long word = from; word < to; word++) {
+                    long bits = invalidBits(buffer, cells, word);
+                    if (bits != 0) {
+                        return (word << 5) + (Long.numberOfTrailingZeros(bits) >>> 1);
+                    }
+                }
+                return -1L;
+            }
+            long middle = (from + to) >>> 1;
+            WordsTask right = new WordsTask(buffer, cells, middle, to);
+            right.fork();
+            long first = new WordsTask(buffer, cells, from, middle).compute();
+            if (first >= 0) {
+                right.cancel(false);        // not needed any more; stops it unless it has started already
+                return first;
+            }
+            return right.join();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.myq.interview.cleaner;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JVM-wide totals of {@link JobMetrics}. Striped adders keep the contention low when many jobs finish at once; a job
+ * touches them only once, when it is done.
+ */
+public class Metrics implements MetricsMXBean {
+    private static final Logger log = LogManager.getLogger(Metrics.class);
+
+    public static final String OBJECT_NAME = "com.myq.interview.cleaner:type=Metrics";
+
+    private static final Metrics instance = register(new Metrics());
+
+    private final LongAdder jobs = new LongAdder();
+    private final LongAdder[] commands = adders(Robot.COMMAND_ARR.length);
+    private final LongAdder[] batterySpent = adders(Robot.COMMAND_ARR.length);
+    private final LongAdder blockedMoves = new LongAdder();
+    private final LongAdder backoffTriggers = new LongAdder();
+    private final LongAdder[] backoffSuccesses = adders(Robot.BACKOFF_STRATEGIES.length);
+    private final LongAdder stuck = new LongAdder();
+    private final LongAdder[] phaseNanos = adders(JobMetrics.PHASES.length);
+
+    private Metrics() {
+    }
+
+    public static Metrics getInstance() {
+        return instance;
+    }
+
+    private static Metrics register(Metrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            log.warn(String.format("Metrics not available over JMX: %s", e));
+        }
+        return metrics;
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Adds counters of a finished job; phases are added as they are recorded.
+     */
+    void add(JobMetrics job) {
+        jobs.increment();
+        for (int op = 0; op < commands.length; op++) {
+            commands[op].add(job.commands[op]);
+            batterySpent[op].add(job.batterySpent[op]);
+        }
+        blockedMoves.add(job.blockedMoves);
+        backoffTriggers.add(job.backoffTriggers);
+        for (int i = 0; i < backoffSuccesses.length; i++) {
+            backoffSuccesses[i].add(job.backoffSuccesses[i]);
+        }
+        stuck.add(job.stuck);
+    }
+
+    void addPhase(int phase, long nanos) {
+        phaseNanos[phase].add(nanos);
+    }
+
+    @Override
+    public long getJobs() {
+        return jobs.sum();
+    }
+
+    @Override
+    public Map<String, Long> getCommands() {
+        return byCommand(commands);
+    }
+
+    @Override
+    public Map<String, Long> getBatterySpent() {
+        return byCommand(batterySpent);
+    }
+
+    private static Map<String, Long> byCommand(LongAdder[] adders) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (int op = 0; op < adders.length; op++) {
+            map.put(Robot.COMMAND_ARR[op], adders[op].sum());
+        }
+        return map;
+    }
+
+    @Override
+    public long getBlockedMoves() {
+        return blockedMoves.sum();
+    }
+
+    @Override
+    public long getBackoffTriggers() {
+        return backoffTriggers.sum();
+    }
+
+    @Override
+    public Map<String, Long> getBackoffSuccesses() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < backoffSuccesses.length; i++) {
+            map.put(String.format("%d: %s", i + 1, Arrays.toString(Robot.BACKOFF_STRATEGIES[i])), backoffSuccesses[i].sum());
+        }
+        return map;
+    }
+
+    @Override
+    public long getStuck() {
+        return stuck.sum();
+    }
+
+    @Override
+    public Map<String, Double> getPhaseMillis() {
+        Map<String, Double> map = new LinkedHashMap<>();
+        for (int i = 0; i < phaseNanos.length; i++) {
+            map.put(JobMetrics.PHASES[i], phaseNanos[i].sum() / 1e6);
+        }
+        return map;
+    }
+
+    @Override
+    public void reset() {
+        jobs.reset();
+        blockedMoves.reset();
+        backoffTriggers.reset();
+        stuck.reset();
+        for (LongAdder[] adders : Arrays.asList(commands, batterySpent, backoffSuccesses, phaseNanos)) {
+            for (LongAdder adder : adders) {
+                adder.reset();
+            }
+        }
+    }
+}
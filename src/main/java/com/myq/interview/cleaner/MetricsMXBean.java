@@ -0,0 +1,33 @@
+package com.myq.interview.cleaner;
+
+import java.util.Map;
+
+/**
+ * Totals of all the jobs run by this JVM; registered as {@value Metrics#OBJECT_NAME}.
+ */
+public interface MetricsMXBean {
+
+    long getJobs();
+
+    /**
+     * @return executed commands (back off strategies included) by command.
+     */
+    Map<String, Long> getCommands();
+
+    Map<String, Long> getBatterySpent();
+
+    long getBlockedMoves();
+
+    long getBackoffTriggers();
+
+    /**
+     * @return successes by strategy; keyed by the strategy's position and its commands, e.g. "1: [TR, A, TL]".
+     */
+    Map<String, Long> getBackoffSuccesses();
+
+    long getStuck();
+
+    Map<String, Double> getPhaseMillis();
+
+    void reset();
+}
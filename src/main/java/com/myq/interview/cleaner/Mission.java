@@ -0,0 +1,50 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.data.Input;
+import com.myq.interview.cleaner.data.RobotPosition;
+
+/**
+ * Validated input in the form the robot runs on: packed room, starting position, compiled commands and battery.
+ */
+public class Mission {
+
+    private final Room room;
+    private final RobotPosition start;
+    private final byte[] program;
+    private final int battery;
+
+    public Mission(Room room, RobotPosition start, byte[] program, int battery) {
+        this.room = room;
+        this.start = start;
+        this.program = program;
+        this.battery = battery;
+    }
+
+    /**
+     * Packs an already validated input.
+     */
+    public Mission(Input input) {
+        this(new Room(input), input.getStart(),
+                input.getProgram() != null ? input.getProgram() : Robot.compile(input.getCommands()),
+                input.getBattery());
+    }
+
+    public Room getRoom() {
+        return room;
+    }
+
+    public RobotPosition getStart() {
+        return start;
+    }
+
+    /**
+     * @return commands compiled to opcodes (see Robot.OP_*).
+     */
+    public byte[] getProgram() {
+        return program;
+    }
+
+    public int getBattery() {
+        return battery;
+    }
+}
@@ -0,0 +1,51 @@
+package com.myq.interview.cleaner;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Two bits per cell, four cells per byte; the cell with the lowest index takes the lowest bits. The buffer is read in
+ * place, so a memory mapped file is queried without ever being copied to the heap.
+ */
+final class PackedGrid implements Grid {
+
+    private final int width;
+    private final int height;
+    private final ByteBuffer cells;
+
+    /**
+     * @param cells packed cells starting at the buffer's position
+     */
+    PackedGrid(int width, int height, ByteBuffer cells) {
+        if (cells.remaining() < bytes(width, height)) {
+            throw new IllegalArgumentException(String.format("Expected %d bytes for %d x %d cells; got %d", bytes(width, height), width, height, cells.remaining()));
+        }
+        this.width = width;
+        this.height = height;
+        this.cells = cells.slice();
+    }
+
+    /**
+     * @return number of bytes taken by the given number of cells.
+     */
+    static long bytes(int width, int height) {
+        return ((long) width * height + 3) >> 2;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * The unused code 3 would be returned as it is; {@link RoomFile#open(java.io.File)} rejects files having it though.
+     */
+    @Override
+    public byte getCell(int index) {
+        return (byte) ((cells.get(index >> 2) >> ((index & 3) << 1)) & 3);
+    }
+}
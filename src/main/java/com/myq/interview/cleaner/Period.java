@@ -0,0 +1,50 @@
+package com.myq.interview.cleaner;
+
+/**
+ * Finds out whether a program is one block of commands repeated over and over (the last pass may be partial), so
+ * that the robot can skip passes that bring nothing new (see Robot#work()).
+ */
+final class Period {
+
+    static final int MAX_PREFIX = 1 << 16;     // periods longer than a third of it are not found
+    static final int MIN_PASSES = 3;           // fewer passes are not worth it
+
+    private Period() {
+    }
+
+    /**
+     * Takes the shortest period of a capped prefix (the KMP failure function); see {@link #end(byte[], int)} for how
+     * far the program keeps it.
+     *
+     * @return length of the block repeated in the prefix at least {@value #MIN_PASSES} times; 0 if there is none.
+     */
+    static int of(byte[] program) {
+        int length = Math.min(program.length, MAX_PREFIX);
+        if (length < MIN_PASSES) {
+            return 0;
+        }
+        int[] border = new int[length + 1];     // border[i]: longest proper border of program[0, i)
+        border[0] = -1;
+        int k = -1;
+        for (int i = 0; i < length; i++) {
+            while (k >= 0 && program[k] != program[i]) {
+                k = border[k];
+            }
+            border[i + 1] = ++k;
+        }
+        int period = length - border[length];
+        return period * MIN_PASSES <= length ? period : 0;
+    }
+
+    /**
+     * @return index of the first command breaking the given period; length of the program if none does.
+     */
+    static int end(byte[] program, int period) {
+        for (int i = period; i < program.length; i++) {
+            if (program[i] != program[i - period]) {
+                return i;
+            }
+        }
+        return program.length;
+    }
+}
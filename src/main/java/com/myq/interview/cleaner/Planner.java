@@ -0,0 +1,346 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.myq.interview.cleaner.data.RobotPosition;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Plans commands cleaning every cell reachable from the start, as cheaply as it can: from where it stands, the robot
+ * goes to the nearest cell not cleaned yet and cleans it, over and over. Each way there is the cheapest one under
+ * {@link Robot#CONSUMPTION} (turning included); the order of the cells is greedy, not optimal (that would be a
+ * travelling salesman problem). The planned moves never hit an obstacle, so no back off strategy is ever triggered.
+ * <p>
+ * The ways are searched by Dial's algorithm on the states (cell index * 4 + facing): as the steps cost 1 to 3, four
+ * buckets of a ring are enough for a priority queue. Distances live in one array over all the states; only the ones
+ * a search touched are reset after it, so a search costs as much as the area it explores rather than the room.
+ */
+public class Planner {
+    private static final Logger log = LogManager.getLogger(Planner.class);
+
+    public static final String OPTION = "--plan";
+    public static final String BATTERY_OPTION = "--battery";
+
+    private static final JsonFactory factory = new JsonFactory();
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    private static final int BUCKETS = 4;      // more than the most expensive step (going back)
+
+    private final Room room;
+    private final RobotPosition start;
+    private final int width;
+    private final int[] delta;                  // cell index difference of going ahead, indexed as Robot.DIRECTION
+
+    private final int[] distance;               // per state; UNREACHED unless touched by the current search
+    private final byte[] via;                   // per state; the op the cheapest way to it ends with
+    private int[] touched = new int[1024];      // states whose distance is to be reset after the search
+    private int touchedCount;
+    private final int[][] buckets = new int[BUCKETS][64];
+    private final int[] bucketSizes = new int[BUCKETS];
+    private int target;                         // state found by the last search
+
+    private long cost;
+
+    public Planner(Room room, RobotPosition start) {
+        this.room = room;
+        this.start = start;
+        this.width = room.getWidth();
+        this.delta = new int[Robot.DIRECTION.length];
+        for (int i = 0; i < delta.length; i++) {
+            delta[i] = Robot.DY[i] * width + Robot.DX[i];
+        }
+        int states = room.getWidth() * room.getHeight() * Robot.DIRECTION.length;
+        this.distance = new int[states];
+        Arrays.fill(distance, UNREACHED);
+        this.via = new byte[states];
+    }
+
+    public Planner(Mission mission) {
+        this(mission.getRoom(), mission.getStart());
+    }
+
+    /**
+     * Plans with no limit on the battery.
+     */
+    public byte[] plan() {
+        return plan(Long.MAX_VALUE);
+    }
+
+    /**
+     * @param battery the plan never costs more; cells too far for what is left are not cleaned
+     * @return commands compiled to opcodes (see Robot.OP_*); see {@link #getCost()} for the battery they need.
+     */
+    public byte[] plan(long battery) {
+        long started = System.nanoTime();
+        int x = start.getX();
+        int y = start.getY();
+        int state = room.index(x, y) * Robot.DIRECTION.length + Robot.DIRECTION_MAP.get(start.getFacing());
+        long[] cleaned = new long[Coverage.words(room.getWidth(), room.getHeight())];
+        StreamingInputReader.ByteArray program = new StreamingInputReader.ByteArray();
+        byte[] way = new byte[64];
+        int cells = 0;
+        cost = 0;
+        while (true) {
+            int wayCost = search(state, cleaned);
+            if (wayCost < 0 || cost + wayCost + Robot.CLEAN_CONSUMPTION > battery) {
+                reset();
+                break;      // any other cell is even farther
+            }
+            int length = 0;
+            for (int s = target; s != state; s = previous(s, via[s])) {
+                if (length == way.length) {
+                    way = Arrays.copyOf(way, length << 1);
+                }
+                way[length++] = via[s];
+            }
+            reset();
+            for (int i = length - 1; i >= 0; i--) {
+                program.add(way[i]);
+            }
+            program.add(Robot.OP_CLEAN);
+            int cell = target / Robot.DIRECTION.length;
+            cleaned[cell >>> 6] |= 1L << cell;
+            cells++;
+            cost += wayCost + Robot.CLEAN_CONSUMPTION;
+            state = target;
+        }
+        log.info(String.format("Planned %d commands cleaning %d cells for %d battery in %.3f s",
+                program.size(), cells, cost, (System.nanoTime() - started) / 1e9));
+        return program.toArray();
+    }
+
+    /**
+     * @return battery needed by the last plan.
+     */
+    public long getCost() {
+        return cost;
+    }
+
+    /**
+     * Finds the cheapest way from the given state to any cell not cleaned yet; it ends in {@link #target}.
+     *
+     * @return cost of the way; -1 if there is no such cell.
+     */
+    private int search(int from, long[] cleaned) {
+        reach(from, 0, Robot.OP_CLEAN);
+        int pending = 1;
+        for (int d = 0; pending > 0; d++) {
+            int[] bucket = buckets[d % BUCKETS];
+            int size = bucketSizes[d % BUCKETS];
+            bucketSizes[d % BUCKETS] = 0;       // steps cost at least 1, so nothing is added to it meanwhile
+            pending -= size;
+            for (int i = 0; i < size; i++) {
+                int state = bucket[i];
+                if (distance[state] != d) {
+                    continue;       // reached more cheaply later on
+                }
+                int cell = state / Robot.DIRECTION.length;
+                if ((cleaned[cell >>> 6] & 1L << cell) == 0) {
+                    target = pick(bucket, i, size, d, cleaned);
+                    clearBuckets();
+                    return d;
+                }
+                int facing = state % Robot.DIRECTION.length;
+                int base = state - facing;
+                pending += reach(base + ((facing + 1) & 3), d + Robot.TURN_CONSUMPTION, Robot.OP_TURN_R);
+                pending += reach(base + ((facing - 1) & 3), d + Robot.TURN_CONSUMPTION, Robot.OP_TURN_L);
+                int x = cell % width;
+                int y = cell / width;
+                if (!room.isObstacle(x + Robot.DX[facing], y + Robot.DY[facing])) {
+                    pending += reach(state + delta[facing] * Robot.DIRECTION.length, d + Robot.GO_ADVANCE_CONSUMPTION, Robot.OP_ADVANCE);
+                }
+                if (!room.isObstacle(x - Robot.DX[facing], y - Robot.DY[facing])) {
+                    pending += reach(state - delta[facing] * Robot.DIRECTION.length, d + Robot.GO_BACK_CONSUMPTION, Robot.OP_BACK);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Picks, among the cells not cleaned yet as near as the first one found, the one with the fewest such neighbours:
+     * cleaning along the edge of what is left rather than across it leaves fewer lone cells to come back for.
+     *
+     * @param first index to the bucket of the first state found
+     * @return state to go to.
+     */
+    private int pick(int[] bucket, int first, int size, int d, long[] cleaned) {
+        int best = bucket[first];
+        int bestCount = Integer.MAX_VALUE;
+        for (int i = first; i < size && bestCount > 0; i++) {
+            int state = bucket[i];
+            int cell = state / Robot.DIRECTION.length;
+            if (distance[state] != d || (cleaned[cell >>> 6] & 1L << cell) != 0) {
+                continue;
+            }
+            int count = 0;
+            int x = cell % width;
+            int y = cell / width;
+            for (int facing = 0; facing < Robot.DIRECTION.length; facing++) {
+                int next = cell + delta[facing];
+                if (!room.isObstacle(x + Robot.DX[facing], y + Robot.DY[facing]) && (cleaned[next >>> 6] & 1L << next) == 0) {
+                    count++;
+                }
+            }
+            if (count < bestCount) {
+                best = state;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Queues the state unless it has been reached at least as cheaply already.
+     *
+     * @return 1 if queued; 0 otherwise.
+     */
+    private int reach(int state, int d, byte op) {
+        int known = distance[state];
+        if (known <= d) {
+            return 0;
+        }
+        if (known == UNREACHED) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount << 1);
+            }
+            touched[touchedCount++] = state;
+        }
+        distance[state] = d;
+        via[state] = op;
+        int b = d % BUCKETS;
+        if (bucketSizes[b] == buckets[b].length) {
+            buckets[b] = Arrays.copyOf(buckets[b], bucketSizes[b] << 1);
+        }
+        buckets[b][bucketSizes[b]++] = state;
+        return 1;
+    }
+
+    /**
+     * @return state the given op was run in to get to the given state.
+     */
+    private int previous(int state, byte op) {
+        int facing = state % Robot.DIRECTION.length;
+        switch (op) {
+            case Robot.OP_TURN_R:
+                return state - facing + ((facing - 1) & 3);
+            case Robot.OP_TURN_L:
+                return state - facing + ((facing + 1) & 3);
+            case Robot.OP_ADVANCE:
+                return state - delta[facing] * Robot.DIRECTION.length;
+            case Robot.OP_BACK:
+                return state + delta[facing] * Robot.DIRECTION.length;
+        }
+        throw new IllegalStateException("Unexpected op on a planned way: " + op);
+    }
+
+    private void clearBuckets() {
+        Arrays.fill(bucketSizes, 0);
+    }
+
+    private void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            distance[touched[i]] = UNREACHED;
+        }
+        touchedCount = 0;
+    }
+
+    /**
+     * Writes a runnable input: the room's map, the start, the planned commands and the given battery.
+     */
+    public void write(byte[] program, int battery, File file) throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file.toPath()), BUFFER_SIZE);
+             JsonGenerator generator = factory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("map");
+            for (int y = 0, i = 0; y < room.getHeight(); y++) {
+                generator.writeStartArray();
+                for (int x = 0; x < room.getWidth(); x++, i++) {
+                    Character c = Room.toChar(room.getCell(i));
+                    if (c == Room.NO_ROOM_NULL_CHAR) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeString(c.toString());
+                    }
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndArray();
+            generator.writeObjectFieldStart("start");
+            StreamingOutputWriter.writeCoordinates(generator, start.getX(), start.getY());
+            generator.writeStringField("facing", start.getFacing());
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("commands");
+            for (byte op : program) {
+                generator.writeString(Robot.COMMAND_ARR[op]);
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("battery", battery);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Runs the planner from the command line; the commands and battery of the source are ignored.
+     *
+     * @param args options and files following {@value #OPTION}
+     * @return 0 on success; otherwise one of Main.ERR_*.
+     */
+    static int run(String[] args) {
+        File mapFile = null;
+        Integer battery = null;
+        while (args.length > 2 && (RoomFile.OPTION.equals(args[0]) || BATTERY_OPTION.equals(args[0]))) {
+            if (RoomFile.OPTION.equals(args[0])) {
+                mapFile = new File(args[1]);
+            } else {
+                try {
+                    battery = Integer.valueOf(args[1]);
+                } catch (NumberFormatException e) {
+                    battery = -1;
+                }
+                if (battery < 0) {
+                    log.error(String.format("Not a battery: %s", args[1]));
+                    return Main.ERR_INVALID_PARAMETERS;
+                }
+            }
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        if (args.length != 2) {
+            log.error(String.format("Usage: %s %s [%s <room.bin>] [%s <battery>] <source.json> <planned.json>\nProvide 2 parameters!",
+                    Main.APP_NAME, OPTION, RoomFile.OPTION, BATTERY_OPTION));
+            return Main.ERR_INVALID_PARAMETERS;
+        }
+        File inputFile = new File(args[0]);
+        File outputFile = new File(args[1]);
+        Mission mission;
+        try {
+            mission = StreamingInputReader.read(inputFile, mapFile != null ? RoomFile.open(mapFile) : null);
+        } catch (IOException e) {
+            log.error(String.format("Can't parse the input JSON from %s.", inputFile), e);
+            return Main.ERR_INVALID_INPUT;
+        }
+        Planner planner = new Planner(mission);
+        byte[] program = battery != null ? planner.plan(battery) : planner.plan();
+        if (battery == null && planner.getCost() > Integer.MAX_VALUE) {
+            log.error(String.format("The plan needs %d battery, more than an input can give.", planner.getCost()));
+            return Main.ERR_INVALID_INPUT;
+        }
+        try {
+            planner.write(program, battery != null ? battery : (int) planner.getCost(), outputFile);
+        } catch (IOException e) {
+            log.error(String.format("Can't write the planned input JSON to %s", outputFile), e);
+            return Main.ERR_INVALID_OUTPUT;
+        }
+        return 0;
+    }
+}
@@ -2,13 +2,16 @@ package com.myq.interview.cleaner;
 
 import com.myq.interview.cleaner.data.Input;
 import com.myq.interview.cleaner.data.Output;
-import com.myq.interview.cleaner.data.Position;
 import com.myq.interview.cleaner.data.RobotPosition;
 import com.myq.interview.cleaner.exc.LowBatteryException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.zip.CRC32;
 
 public class Robot {
     private static final Logger log = LogManager.getLogger(Main.class);
@@ -17,48 +20,337 @@ public class Robot {
     public static final int GO_ADVANCE_CONSUMPTION = 2;
     public static final int GO_BACK_CONSUMPTION = 3;
     public static final int CLEAN_CONSUMPTION = 5;
+    // indexed by opcode
+    static final int[] CONSUMPTION = {CLEAN_CONSUMPTION, TURN_CONSUMPTION, TURN_CONSUMPTION, GO_ADVANCE_CONSUMPTION, GO_BACK_CONSUMPTION};
 
-    private static final String[][] BACKOFF_STRATEGIES = {
+    static final String[][] BACKOFF_STRATEGIES = {
             {"TR", "A", "TL"},
             {"TR", "A", "TR"},
             {"TR", "A", "TR"},
             {"TR", "B", "TR", "A"},
             {"TL", "TL", "A"},
     };
+    static final byte[][] BACKOFF_PROGRAMS = new byte[BACKOFF_STRATEGIES.length][];
 
-    private final RobotPosition position;       //current position
+    static {
+        for (int i = 0; i < BACKOFF_STRATEGIES.length; i++) {
+            BACKOFF_PROGRAMS[i] = compile(BACKOFF_STRATEGIES[i]);
+        }
+    }
+
+    private int x;                              //current position
+    private int y;
+    private int facing;                         //current facing; index to DIRECTION
     private int battery;                        //current battery level
-    private final String[] commands;
-    private final Room room;
+    private final byte[] program;               //compiled commands; see OP_*
+    private final Room room;                    //shared; read only
+    private final Coverage coverage;            //what this robot has visited and cleaned
+    private final JobMetrics metrics;
+    private StepRecorder recorder;              //null unless tracing
+    private CoverageListener listener;          //null unless someone follows the newly covered cells
+    private int next;                           //index of the first command not run yet
+    private boolean halted;                     //stuck or out of energy; no more commands to run
+    private File checkpointFile;                //null unless checkpointing
+    private int checkpointInterval;
+    private final CRC32 commandsCrc = new CRC32();  //of the commands before commandsChecked
+    private int commandsChecked;
+    private int period;                         //of the program (see Period); 0 when not periodic
+    private int periodicEnd;                    //the program repeats its first period commands up to here
+    private int nextPass = Integer.MAX_VALUE;   //where the next pass of a periodic program starts
+    private int passX = -1;                     //state at the start of the last pass
+    private int passY;
+    private int passFacing;
+    private int passBattery;
+    private JobMetrics orbitStart;              //counters at the start of a pass known to repeat the one before
 
     public Robot(Input input) {
-        this.position = input.getStart();
-        this.battery = input.getBattery();
-        this.commands = input.getCommands();
-        this.room = new Room(input);
+        this(new Mission(input));
+    }
+
+    public Robot(Mission mission) {
+        this(mission, new JobMetrics());
+    }
+
+    /**
+     * @param metrics where to count the commands, moves and back off strategies; simulation time is recorded too
+     */
+    public Robot(Mission mission, JobMetrics metrics) {
+        this(mission, metrics, Coverage.of(mission.getRoom()));
+    }
+
+    /**
+     * @param coverage where to mark visited and cleaned cells; e.g. one shared by a {@link Fleet}
+     */
+    public Robot(Mission mission, JobMetrics metrics, Coverage coverage) {
+        this.x = mission.getStart().getX();
+        this.y = mission.getStart().getY();
+        this.facing = DIRECTION_MAP.get(mission.getStart().getFacing());
+        this.battery = mission.getBattery();
+        this.program = mission.getProgram();
+        this.room = mission.getRoom();
+        this.coverage = coverage;
+        this.metrics = metrics;
+        coverage.visit(room.index(x, y));
+    }
+
+    /**
+     * Continues a run from the given checkpoint; the mission's commands must start with the ones run before it.
+     *
+     * @throws IllegalArgumentException when the checkpoint does not belong to the mission.
+     */
+    public Robot(Mission mission, JobMetrics metrics, Checkpoint checkpoint) {
+        this.x = checkpoint.getX();
+        this.y = checkpoint.getY();
+        this.facing = checkpoint.getFacing();
+        this.battery = checkpoint.getBattery();
+        this.program = mission.getProgram();
+        this.room = mission.getRoom();
+        this.metrics = metrics;
+        if (checkpoint.getWidth() != room.getWidth() || checkpoint.getHeight() != room.getHeight()) {
+            throw new IllegalArgumentException(String.format("The checkpoint was taken in a room of %d x %d cells, not %d x %d.",
+                    checkpoint.getWidth(), checkpoint.getHeight(), room.getWidth(), room.getHeight()));
+        }
+        if (checkpoint.getNext() > program.length) {
+            throw new IllegalArgumentException(String.format("The checkpoint was taken after %d commands, but there are only %d.",
+                    checkpoint.getNext(), program.length));
+        }
+        commandsCrc.update(program, 0, checkpoint.getNext());
+        commandsChecked = checkpoint.getNext();
+        if ((int) commandsCrc.getValue() != checkpoint.getCommandsCrc()) {
+            throw new IllegalArgumentException(String.format("The first %d commands differ from the ones the checkpoint was taken with.", checkpoint.getNext()));
+        }
+        this.coverage = Coverage.of(room, checkpoint.getVisited(), checkpoint.getCleaned());
+        this.next = checkpoint.getNext();
+        this.halted = checkpoint.isHalted();
+    }
+
+    public JobMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Records every step from now on; runs of moves are then executed command by command.
+     */
+    public void setRecorder(StepRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Reports every newly visited or cleaned cell from now on; runs of moves are then executed command by command.
+     */
+    public void setListener(CoverageListener listener) {
+        this.listener = listener;
     }
 
+    /**
+     * Writes a {@link Checkpoint} to the given file every given number of commands and once more when done.
+     */
+    public void setCheckpoints(File file, int interval) {
+        this.checkpointFile = file;
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * Runs the commands and returns the resulting state (see {@link #getOutput()}).
+     *
+     * @throws UncheckedIOException when a checkpoint can't be written.
+     */
     public Output work() {
+        run();
+        return getOutput();
+    }
+
+    /**
+     * Runs the commands; the resulting state is left to be asked for.
+     *
+     * @throws UncheckedIOException when a checkpoint can't be written.
+     */
+    public void run() {
+        long started = System.nanoTime();
         boolean allCommands = true;
-        room.visited(new Position(position));
+        int i = next;
+        int nextCheckpoint = checkpointFile != null ? next + checkpointInterval : Integer.MAX_VALUE;
+        if (halted) {
+            log.info(String.format("Resumed run has halted already at command #%d", next));
+        } else if (recorder == null) {
+            findPeriod();
+        }
         try {
-            for (String command : commands) {
-                log.info(String.format("Command: %s; Robot at %d, %d; facing %s; battery: %d", command, position.getX(), position.getY(), position.getFacing(), battery));
-                if (!runCommand(command)) {
-                    if (!triggerBackOffStrategy()) {
-                        log.error(String.format("Robot stuck at %d, %d; facing %s; battery: %d", position.getX(), position.getY(), position.getFacing(), battery));
-                        allCommands = false;
-                        break;
+            for (; !halted && i < program.length; i++) {
+                if (i >= nextCheckpoint) {
+                    checkpoint(i);
+                    nextCheckpoint = i + checkpointInterval;
+                }
+                if (i == nextPass) {
+                    int skipped = skipPasses(i);
+                    if (skipped > 0) {
+                        i += skipped - 1;
+                        continue;
                     }
                 }
+                byte op = program[i];
+                if ((op == OP_ADVANCE || op == OP_BACK) && recorder == null && listener == null) {
+                    int moved = moveRun(i);
+                    if (moved > 0) {
+                        i += moved - 1;
+                        continue;
+                    }
+                }
+                if (!execute(op)) {
+                    allCommands = false;
+                    halted = true;
+                    break;
+                }
             }
         } catch (LowBatteryException e) {
             log.error(e);
+            halted = true;
+        }
+        if (allCommands && log.isInfoEnabled()) {
+            log.info(String.format("Done; Robot at %d, %d; facing %s; battery: %d", x, y, DIRECTION[facing], battery));
+        }
+        next = i;
+        if (checkpointFile != null) {
+            checkpoint(next);
+        }
+        metrics.addPhase(JobMetrics.PHASE_SIMULATE, System.nanoTime() - started);
+        Metrics.getInstance().add(metrics);
+    }
+
+    private void findPeriod() {
+        period = Period.of(program);
+        if (period == 0) {
+            return;
+        }
+        periodicEnd = Period.end(program, period);
+        int first = (next + period - 1) / period * period;
+        if (first + 2 * period > periodicEnd) {
+            period = 0;
+            return;
+        }
+        nextPass = first;
+        if (log.isInfoEnabled()) {
+            log.info(String.format("Commands repeat a block of %d up to command #%d", period, periodicEnd));
+        }
+    }
+
+    /**
+     * Called at the start of every pass of a periodic program. Once a pass has brought the robot back to the cell and
+     * facing it started on, every further pass runs the same commands from the same state: it moves the same way,
+     * costs the same energy and visits and cleans nothing new. Such a pass is run once more to be counted; then all
+     * the remaining full passes the battery is enough for are skipped at once. The last partial pass (or the one
+     * running out of energy) is run command by command.
+     *
+     * @return number of skipped commands.
+     */
+    private int skipPasses(int i) {
+        if (x == passX && y == passY && facing == passFacing) {
+            if (orbitStart != null) {
+                int cost = passBattery - battery;
+                int passes = Math.min((periodicEnd - i) / period, battery / cost);
+                metrics.repeatSince(orbitStart, passes);
+                battery -= passes * cost;
+                nextPass = Integer.MAX_VALUE;   // the battery is too low or the block does not repeat any more
+                if (log.isInfoEnabled()) {
+                    log.info(String.format("Skipping %d passes of %d commands; Robot at %d, %d; facing %s; battery: %d", passes, period, x, y, DIRECTION[facing], battery));
+                }
+                return passes * period;
+            }
+            orbitStart = metrics.snapshot();
+        } else {
+            orbitStart = null;
+        }
+        passX = x;
+        passY = y;
+        passFacing = facing;
+        passBattery = battery;
+        nextPass = i + 2 * period <= periodicEnd ? i + period : Integer.MAX_VALUE;
+        return 0;
+    }
+
+    /**
+     * Runs one more command that is not a part of the mission; e.g. one that has just arrived (see
+     * {@link CommandStream}). Simulation time and the JVM-wide metrics are left to the caller.
+     *
+     * @return false when the robot got stuck or ran out of energy; it does not run any command afterwards.
+     */
+    public boolean step(byte op) {
+        if (halted) {
+            return false;
+        }
+        try {
+            halted = !execute(op);
+        } catch (LowBatteryException e) {
+            log.error(e);
+            halted = true;
         }
-        if (allCommands) {
-            log.info(String.format("Done; Robot at %d, %d; facing %s; battery: %d", position.getX(), position.getY(), position.getFacing(), battery));
+        return !halted;
+    }
+
+    /**
+     * Runs the command; triggers the back off strategy when the command can't be done.
+     *
+     * @return false when stuck.
+     */
+    private boolean execute(byte op) throws LowBatteryException {
+        if (log.isInfoEnabled()) {
+            log.info(String.format("Command: %s; Robot at %d, %d; facing %s; battery: %d", COMMAND_ARR[op], x, y, DIRECTION[facing], battery));
+        }
+        if (!runCommand(op, 0) && !triggerBackOffStrategy()) {
+            metrics.stuck++;
+            log.error(String.format("Robot stuck at %d, %d; facing %s; battery: %d", x, y, DIRECTION[facing], battery));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the robot got stuck or ran out of energy.
+     */
+    public boolean isHalted() {
+        return halted;
+    }
+
+    /**
+     * @return the current state; cell sets are views of the robot's coverage.
+     */
+    public Output getOutput() {
+        return new Output(coverage.getVisited(), coverage.getCleaned(), getPosition(), battery); // is sorted already
+    }
+
+    public RobotPosition getPosition() {
+        return new RobotPosition(x, y, DIRECTION[facing]);
+    }
+
+    public int getBattery() {
+        return battery;
+    }
+
+    /**
+     * Told about cells the moment they are visited or cleaned for the first time.
+     */
+    public interface CoverageListener {
+        void visited(int index);
+
+        void cleaned(int index);
+    }
+
+    /**
+     * Writes the current state; the given command is the first one not run yet.
+     */
+    private void checkpoint(int index) {
+        commandsCrc.update(program, commandsChecked, index - commandsChecked);
+        commandsChecked = index;
+        Checkpoint checkpoint = new Checkpoint(room.getWidth(), room.getHeight(), x, y, facing, battery, index, halted,
+                (int) commandsCrc.getValue(), coverage.getVisitedBits(), coverage.getCleanedBits());
+        try {
+            checkpoint.write(checkpointFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Can't write the checkpoint to %s", checkpointFile), e);
+        }
+        if (log.isInfoEnabled()) {
+            log.info(String.format("Checkpoint before command #%d written to %s", index, checkpointFile));
         }
-        return new Output(room.getVisited(), room.getCleaned(), position, battery); // is sorted already
     }
 
     public static final String COMMAND_CLEAN = "C";
@@ -69,29 +361,132 @@ public class Robot {
     public static final String[] COMMAND_ARR = {COMMAND_CLEAN, COMMAND_TURN_R, COMMAND_TURN_L, COMMAND_ADVANCE, COMMAND_BACK};
     public static final Set<String> COMMAND_SET = new HashSet<>(Arrays.asList(COMMAND_ARR));
 
-    private boolean runCommand(String command) throws LowBatteryException {
+    // opcodes of compiled commands; each one is the index of the command in COMMAND_ARR
+    public static final byte OP_CLEAN = 0;
+    public static final byte OP_TURN_R = 1;
+    public static final byte OP_TURN_L = 2;
+    public static final byte OP_ADVANCE = 3;
+    public static final byte OP_BACK = 4;
+    public static final byte OP_UNKNOWN = -1;
+
+    /**
+     * @return opcode of the given command; {@link #OP_UNKNOWN} if the command is not valid.
+     */
+    public static byte compile(String command) {
+        if (command == null) {
+            return OP_UNKNOWN;
+        }
         switch (command) {
             case COMMAND_CLEAN:
-                clean();
-                return true;
+                return OP_CLEAN;
             case COMMAND_TURN_R:
-                turn(TURN_RIGHT);
-                return true;
+                return OP_TURN_R;
             case COMMAND_TURN_L:
-                turn(TURN_LEFT);
-                return true;
+                return OP_TURN_L;
             case COMMAND_ADVANCE:
-                return advance();
+                return OP_ADVANCE;
             case COMMAND_BACK:
-                return backward();
+                return OP_BACK;
+        }
+        return OP_UNKNOWN;
+    }
+
+    /**
+     * Same as {@link #compile(String)}, but reads the command from a character buffer without creating a String.
+     *
+     * @return opcode of the given command; {@link #OP_UNKNOWN} if the command is not valid.
+     */
+    public static byte compile(char[] chars, int offset, int length) {
+        if (length == 1) {
+            switch (chars[offset]) {
+                case 'C':
+                    return OP_CLEAN;
+                case 'A':
+                    return OP_ADVANCE;
+                case 'B':
+                    return OP_BACK;
+            }
+        } else if (length == 2 && chars[offset] == 'T') {
+            switch (chars[offset + 1]) {
+                case 'R':
+                    return OP_TURN_R;
+                case 'L':
+                    return OP_TURN_L;
+            }
+        }
+        return OP_UNKNOWN;
+    }
+
+    /**
+     * @return program of opcodes; one per command.
+     * @throws IllegalArgumentException when there is an unknown command.
+     */
+    public static byte[] compile(String[] commands) {
+        byte[] program = new byte[commands.length];
+        for (int i = 0; i < commands.length; i++) {
+            program[i] = compile(commands[i]);
+            if (program[i] == OP_UNKNOWN) {
+                throw new IllegalArgumentException(String.format("Unknown command: %s", commands[i]));
+            }
         }
-        throw new RuntimeException(String.format("Unknown command: %s", command));
+        return program;
+    }
+
+    /**
+     * @param flags StepRecorder.FLAG_* describing the step; only used when tracing
+     */
+    private boolean runCommand(byte op, int flags) throws LowBatteryException {
+        int before = battery;
+        boolean done;
+        try {
+            switch (op) {
+                case OP_CLEAN:
+                    clean();
+                    done = true;
+                    break;
+                case OP_TURN_R:
+                    turn(TURN_RIGHT);
+                    done = true;
+                    break;
+                case OP_TURN_L:
+                    turn(TURN_LEFT);
+                    done = true;
+                    break;
+                case OP_ADVANCE:
+                    done = advance();
+                    break;
+                case OP_BACK:
+                    done = backward();
+                    break;
+                default:
+                    throw new RuntimeException(String.format("Unknown opcode: %d", op));
+            }
+        } catch (LowBatteryException e) {
+            if (recorder != null) {
+                recorder.record(op, flags | StepRecorder.FLAG_LOW_BATTERY, x, y, facing, battery);
+            }
+            throw e;
+        }
+        metrics.commands[op]++;         // not reached when the battery is low; nothing is consumed then
+        metrics.batterySpent[op] += before - battery;
+        if (!done) {
+            metrics.blockedMoves++;
+        }
+        if (recorder != null) {
+            recorder.record(op, done ? flags : flags | StepRecorder.FLAG_BLOCKED, x, y, facing, battery);
+        }
+        return done;
     }
 
     private void clean() throws LowBatteryException {
         consume(CLEAN_CONSUMPTION);
-        room.cleaned(new Position(position));   // set new position
-        log.debug(String.format("Cleaning; battery level at %d", battery));
+        int index = room.index(x, y);
+        if (coverage.clean(index) && listener != null) {
+            listener.cleaned(index);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Cleaning; battery level at %d", battery));
+        }
     }
 
     /**
@@ -106,29 +501,44 @@ public class Robot {
             throw new LowBatteryException(message);
         }
         battery -= c;
-        log.debug(String.format("Consumed %d; remaining %d", c, battery));
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Consumed %d; remaining %d", c, battery));
+        }
     }
 
     /**
-     * Returns true if one of the strategies worked.
+     * Returns true if one of the strategies worked. When there is energy enough for all the strategies to be tried,
+     * their outcome is taken from the room (see {@link Backoff}); otherwise, or when tracing, they are run command by
+     * command, so that the robot stops exactly where its battery runs out.
      *
      * @return false if none of the strategies worked.
      * @throws LowBatteryException when having not enough energy to finish
      */
     private boolean triggerBackOffStrategy() throws LowBatteryException {
         log.info("Triggering back off strategy");
+        metrics.backoffTriggers++;
+
+        if (recorder == null) {
+            char backoff = room.getBackoff(x, y, facing);
+            if (battery >= Backoff.cost(backoff)) {
+                return apply(backoff);
+            }
+        }
 
         boolean worked = false;
-        for (String[] strategy : BACKOFF_STRATEGIES) {
-            log.info("Trying strategy: " + Arrays.toString(strategy));
+        for (int i = 0; i < BACKOFF_PROGRAMS.length; i++) {
+            if (log.isInfoEnabled()) {
+                log.info("Trying strategy: " + Arrays.toString(BACKOFF_STRATEGIES[i]));
+            }
             worked = true;
-            for (String command : strategy) {
-                if (!runCommand(command)) {
+            for (byte op : BACKOFF_PROGRAMS[i]) {
+                if (!runCommand(op, StepRecorder.FLAG_BACKOFF)) {
                     worked = false;
                     break;
                 }
             }
             if (worked) {
+                metrics.backoffSuccesses[i]++;
                 log.debug("Backoff strategy worked!!");
                 break;
             }
@@ -136,6 +546,46 @@ public class Robot {
         return worked;
     }
 
+    /**
+     * Replays the packed outcome of the back off strategies (see {@link Backoff}): the moves are known to be free or
+     * blocked, so the room is not asked about them again. Energy is known to be enough for all of it.
+     *
+     * @return false if none of the strategies worked.
+     */
+    private boolean apply(char backoff) {
+        int worked = Backoff.strategy(backoff);
+        if (log.isInfoEnabled()) {
+            log.info(worked >= 0 ? "Back off strategy worked: " + Arrays.toString(BACKOFF_STRATEGIES[worked]) : "No back off strategy worked");
+        }
+        for (int i = 0, strategies = Backoff.strategies(backoff); i < strategies; i++) {
+            int moves = i == worked ? Integer.MAX_VALUE : Backoff.moves(backoff, i);
+            for (byte op : BACKOFF_PROGRAMS[i]) {
+                metrics.commands[op]++;
+                metrics.batterySpent[op] += CONSUMPTION[op];
+                battery -= CONSUMPTION[op];
+                if (op == OP_TURN_R || op == OP_TURN_L) {
+                    facing = Backoff.turn(facing, op);
+                    continue;
+                }
+                if (moves-- == 0) {
+                    metrics.blockedMoves++;
+                    break;
+                }
+                int front = op == OP_ADVANCE ? GO_AHEAD : GO_BACK;
+                x += DX[facing] * front;
+                y += DY[facing] * front;
+                int index = room.index(x, y);
+                if (coverage.visit(index) && listener != null) {
+                    listener.visited(index);
+                }
+            }
+        }
+        if (worked >= 0) {
+            metrics.backoffSuccesses[worked]++;
+        }
+        return worked >= 0;
+    }
+
     /**
      * Returns true when robot moved.
      *
@@ -146,14 +596,23 @@ public class Robot {
      */
     private boolean move(int consumption, int front) throws LowBatteryException {
         consume(consumption);
-        Position nextPosition = getNextPosition(front);    // returns a new instance
-        if (!room.isObstacle(nextPosition)) {
-            room.visited(nextPosition);
-            position.setPosition(nextPosition);
-            log.debug(String.format("Moving to new position %d, %d", position.getX(), position.getY()));
+        int nextX = x + DX[facing] * front;
+        int nextY = y + DY[facing] * front;
+        if (!room.isObstacle(nextX, nextY)) {
+            x = nextX;
+            y = nextY;
+            int index = room.index(x, y);
+            if (coverage.visit(index) && listener != null) {
+                listener.visited(index);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Moving to new position %d, %d", x, y));
+            }
             return true;
         } else {
-            log.debug(String.format("Can't move to %d, %d", nextPosition.getX(), nextPosition.getY()));
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Can't move to %d, %d", nextX, nextY));
+            }
             return false;
         }
     }
@@ -161,6 +620,43 @@ public class Robot {
     public static final int GO_AHEAD = 1;
     public static final int GO_BACK = -1;
 
+    private static final int MIN_RUN = 2;       // shorter runs of moves are executed command by command
+
+    /**
+     * Executes a run of identical move commands (starting at the given program index) in one step.
+     * The run is cut right before the first move that would hit an obstacle or would not have enough energy;
+     * that move is then left to the regular per-command execution (back off strategy, low battery).
+     *
+     * @return number of executed commands; 0 if the run is too short to be worth it
+     */
+    private int moveRun(int from) {
+        byte op = program[from];
+        int consumption = op == OP_ADVANCE ? GO_ADVANCE_CONSUMPTION : GO_BACK_CONSUMPTION;
+        int front = op == OP_ADVANCE ? GO_AHEAD : GO_BACK;
+        int direction = op == OP_ADVANCE ? facing : (facing + 2) & (DIRECTION.length - 1);
+        int index = room.index(x, y);
+        int limit = Math.min(room.freeCells(index, direction), battery / consumption);
+        int count = 0;
+        int end = Math.min(program.length, nextPass);      // a pass must start with its first command
+        while (count < limit && from + count < end && program[from + count] == op) {
+            count++;
+        }
+        if (count < MIN_RUN) {
+            return 0;
+        }
+        if (log.isInfoEnabled()) {
+            log.info(String.format("Commands: %d x %s; Robot at %d, %d; facing %s; battery: %d", count, COMMAND_ARR[op], x, y, DIRECTION[facing], battery));
+        }
+        int step = room.index(DX[direction], DY[direction]);
+        coverage.visit(index + step, step, count);
+        x += DX[facing] * front * count;
+        y += DY[facing] * front * count;
+        battery -= consumption * count;
+        metrics.commands[op] += count;
+        metrics.batterySpent[op] += consumption * count;
+        return count;
+    }
+
     /**
      * Returns true if the move is possible (no obstacle).
      */
@@ -181,6 +677,9 @@ public class Robot {
     public static final String DIRECION_W = "W";
     public static final String[] DIRECTION = {DIRECTION_N, DIRECTION_E, DIRECTION_S, DIRECION_W};
     public static final Map<String, Integer> DIRECTION_MAP = new HashMap<>(DIRECTION.length);
+    // position deltas when going ahead, indexed the same way as DIRECTION
+    static final int[] DX = {0, 1, 0, -1};
+    static final int[] DY = {-1, 0, 1, 0};
 
     static {
         for (int i = 0; i < DIRECTION.length; i++) {
@@ -189,33 +688,17 @@ public class Robot {
     }
 
     private void turn(int turn) throws LowBatteryException {
-        log.debug(String.format("Turning %d", turn));
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Turning %d", turn));
+        }
         consume(TURN_CONSUMPTION);
 
-        position.setFacing(DIRECTION[(DIRECTION_MAP.get(position.getFacing()) + DIRECTION_MAP.size() + turn) % DIRECTION_MAP.size()]);
-        log.debug(String.format("Turned to: %s", position.getFacing()));
+        facing = (facing + turn) & (DIRECTION.length - 1);    // DIRECTION.length is a power of 2
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Turned to: %s", DIRECTION[facing]));
+        }
     }
 
     private static final int TURN_RIGHT = 1;
     private static final int TURN_LEFT = -1;
-
-    /**
-     * Returns the front or back position.
-     * front = 1 is for FRONT; -1 is for BACK
-     *
-     * @return next position
-     */
-    private Position getNextPosition(int front) {
-        switch (position.getFacing()) {
-            case DIRECTION_N:
-                return new Position(position.getX(), position.getY() - front);
-            case DIRECTION_E:
-                return new Position(position.getX() + front, position.getY());
-            case DIRECTION_S:
-                return new Position(position.getX(), position.getY() + front);
-            case DIRECION_W:
-                return new Position(position.getX() - front, position.getY());
-        }
-        throw new RuntimeException("Unknown position: " + position.getFacing());  // never happens
-    }
 }
@@ -3,55 +3,256 @@ package com.myq.interview.cleaner;
 import com.myq.interview.cleaner.data.Input;
 import com.myq.interview.cleaner.data.Position;
 
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Immutable room map together with tables derived from it; it is safe to share one room among many robots (see
+ * {@link RoomCache}). What a robot visits and cleans is kept by the robot itself (see {@link Coverage}).
+ */
 public class Room {
 
-    private final Character[][] map;
-    private final Set<Position> visited;
-    private final Set<Position> cleaned;
+    public static final byte NO_ROOM = 0;
+    public static final byte SPACE = 1;
+    public static final byte COLUMN = 2;
+
+    private final int width;
+    private final int height;
+    private final Grid grid;
+    private final TiledGrid tiled;      // the grid when it is a tiled one; rays are kept by its tiles then
+    // per direction (indexed as Robot.DIRECTION): number of free cells in front of each cell; computed lazily
+    private final AtomicReferenceArray<char[]> rays = new AtomicReferenceArray<>(4);
+    // packed outcomes of the back off strategies (see Backoff) in chunks of cells, each indexed by cell * 4 + facing
+    // within the chunk; a chunk is allocated when a robot first gets blocked in it
+    private final AtomicReferenceArray<char[]> backoffs;
+
+    private static final int BACKOFF_SHIFT = 10;     // 1024 cells per chunk
 
     public Room(Input input) {
-        map = input.getMap();
-        visited = new TreeSet<>();  // if no need to be sorted, use HashSet
-        cleaned = new TreeSet<>();
+        this(input.getMap());
+    }
+
+    /**
+     * Packs the given map the same way as {@link #Room(int, int, byte[])}. Ragged rows are padded with {@link #NO_ROOM}
+     * up to the longest row.
+     */
+    public Room(Character[][] map) {
+        int w = 0;
+        for (Character[] row : map) {
+            if (row != null && row.length > w) {
+                w = row.length;
+            }
+        }
+        width = w;
+        height = map.length;
+        byte[] cells = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            Character[] row = map[y];
+            if (row == null) {
+                continue;
+            }
+            int offset = y * width;
+            for (int x = 0; x < row.length; x++) {
+                cells[offset + x] = toCell(row[x]);
+            }
+        }
+        grid = pack(width, height, cells);
+        tiled = grid instanceof TiledGrid ? (TiledGrid) grid : null;
+        backoffs = backoffChunks(width, height);
+    }
+
+    /**
+     * Wraps already packed cells; a room whose bounding box is mostly out of room gets tiled (see {@link TiledGrid}).
+     *
+     * @param cells row-major cell codes; index = y * width + x
+     */
+    public Room(int width, int height, byte[] cells) {
+        this(pack(width, height, cells));
+    }
+
+    /**
+     * Uses the given grid as it is; e.g. a memory mapped one (see {@link RoomFile}).
+     */
+    public Room(Grid grid) {
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.grid = grid;
+        this.tiled = grid instanceof TiledGrid ? (TiledGrid) grid : null;
+        this.backoffs = backoffChunks(width, height);
+    }
+
+    private static AtomicReferenceArray<char[]> backoffChunks(int width, int height) {
+        return new AtomicReferenceArray<>((int) (((long) width * height + (1 << BACKOFF_SHIFT) - 1) >> BACKOFF_SHIFT));
+    }
+
+    private static Grid pack(int width, int height, byte[] cells) {
+        return TiledGrid.isSparse(width, height, cells) ? new TiledGrid(width, height, cells) : new ArrayGrid(width, height, cells);
+    }
+
+    /**
+     * @return true if the cells are kept in tiles; robots keep their coverage in tiles too then (see {@link Coverage#of(Room)}).
+     */
+    boolean isTiled() {
+        return tiled != null;
     }
 
     public static final Character NO_ROOM_NULL_CHAR = null;
     public static final Character COLUMN_CHAR = 'C';
     public static final Character SPACE_CHAR = 'S';
 
+    /**
+     * Converts a map character to its cell code.
+     */
+    public static byte toCell(Character c) {
+        if (c == NO_ROOM_NULL_CHAR) return NO_ROOM;
+        switch (c) {
+            case 'S':
+                return SPACE;
+            case 'C':
+                return COLUMN;
+        }
+        return NO_ROOM;
+    }
+
+    /**
+     * Converts a cell code back to its map character.
+     */
+    public static Character toChar(byte cell) {
+        switch (cell) {
+            case SPACE:
+                return SPACE_CHAR;
+            case COLUMN:
+                return COLUMN_CHAR;
+        }
+        return NO_ROOM_NULL_CHAR;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return code of the cell at the given index ({@link #NO_ROOM}, {@link #SPACE} or {@link #COLUMN}).
+     */
+    public byte getCell(int index) {
+        return grid.getCell(index);
+    }
+
     /**
      * Returns true if the given position is out of map (wall) or there is a column on the position.
      *
      * @return false if robot can move to the given position
      */
     public boolean isObstacle(Position position) {
-        // getting out of the map
-        if (position.getX() < 0) return true;
-        if (position.getY() < 0) return true;
-        if (position.getY() >= map.length) return true;
-        if (position.getX() >= map[position.getY()].length) return true;
+        return isObstacle(position.getX(), position.getY());
+    }
+
+    /**
+     * Returns true if the given coordinates are out of map (wall) or there is a column on them.
+     *
+     * @return false if robot can move to the given coordinates
+     */
+    public boolean isObstacle(int x, int y) {
+        // any negative term means getting out of the map
+        if ((x | y | (width - 1 - x) | (height - 1 - y)) < 0) return true;
         // is it out of room or is there a column?
-        Character c = map[position.getY()][position.getX()];
-        return c != SPACE_CHAR;
+        return grid.getCell(x, y) != SPACE;
     }
 
-    public void visited(Position position) {
-        visited.add(position);
+    public static final int MAX_RAY = Character.MAX_VALUE;
+
+    /**
+     * Returns how many free cells follow the given cell in the given direction before hitting an obstacle.
+     * The distance is capped at {@link #MAX_RAY}; longer rays are reported as {@link #MAX_RAY}.
+     *
+     * @param index     cell index (see {@link #index(int, int)})
+     * @param direction index to Robot.DIRECTION
+     */
+    public int freeCells(int index, int direction) {
+        if (tiled != null) {
+            return tiled.freeCells(index % width, index / width, direction);
+        }
+        char[] ray = rays.get(direction);
+        if (ray == null) {
+            ray = computeRays(direction);
+            rays.compareAndSet(direction, null, ray);
+        }
+        return ray[index];
     }
 
-    public void cleaned(Position position) {
-        cleaned.add(position);
+    /**
+     * Sweeps the grid against the given direction so that each cell's ray is derived from its neighbour's one.
+     */
+    private char[] computeRays(int direction) {
+        int size = width * height;
+        char[] ray = new char[size];
+        switch (direction) {
+            case 0: // N
+                for (int i = width; i < size; i++) {
+                    ray[i] = next(ray, i - width);
+                }
+                break;
+            case 1: // E
+                for (int y = 0; y < height; y++) {
+                    for (int i = index(width - 2, y); i >= index(0, y); i--) {
+                        ray[i] = next(ray, i + 1);
+                    }
+                }
+                break;
+            case 2: // S
+                for (int i = size - width - 1; i >= 0; i--) {
+                    ray[i] = next(ray, i + width);
+                }
+                break;
+            case 3: // W
+                for (int y = 0; y < height; y++) {
+                    for (int i = index(1, y); i < index(width, y); i++) {
+                        ray[i] = next(ray, i - 1);
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown direction: " + direction);
+        }
+        return ray;
     }
 
-    public Set<Position> getVisited() {
-        return visited;
+    /**
+     * @return ray of a cell whose neighbour (in the ray's direction) has the given index.
+     */
+    private char next(char[] ray, int neighbour) {
+        if (grid.getCell(neighbour) != SPACE) return 0;
+        int r = ray[neighbour] + 1;
+        return (char) (r > MAX_RAY ? MAX_RAY : r);
     }
 
-    public Set<Position> getCleaned() {
-        return cleaned;
+    /**
+     * @param facing index to Robot.DIRECTION
+     * @return what the back off strategies do when triggered on the given cell with the given facing; packed as
+     * described in {@link Backoff}.
+     */
+    char getBackoff(int x, int y, int facing) {
+        int index = index(x, y);
+        char[] chunk = backoffs.get(index >>> BACKOFF_SHIFT);
+        if (chunk == null) {
+            chunk = new char[Robot.DIRECTION.length << BACKOFF_SHIFT];
+            if (!backoffs.compareAndSet(index >>> BACKOFF_SHIFT, null, chunk)) {
+                chunk = backoffs.get(index >>> BACKOFF_SHIFT);
+            }
+        }
+        int key = (index & (1 << BACKOFF_SHIFT) - 1) << 2 | facing;
+        char outcome = chunk[key];
+        if (outcome == Backoff.UNKNOWN) {
+            outcome = Backoff.compute(this, x, y, facing);
+            chunk[key] = outcome;       // racing robots store the very same value
+        }
+        return outcome;
     }
 
+    public int index(int x, int y) {
+        return y * width + x;
+    }
 }
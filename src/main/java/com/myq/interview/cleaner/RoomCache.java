@@ -0,0 +1,132 @@
+package com.myq.interview.cleaner;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Rooms shared by all the jobs of one JVM, keyed by a SHA-256 of their cells. Jobs on the same floor plan thus get
+ * the very same (immutable) room, including its lazily derived tables, instead of building their own.
+ * <p>
+ * The least recently used rooms are evicted once either the number of rooms or their total number of cells goes
+ * over its limit; rooms larger than the cell limit are never cached. The limits are given by the system properties
+ * {@value #MAX_ROOMS_PROPERTY} and {@value #MAX_CELLS_PROPERTY}. Besides a byte per cell, a room derives up to
+ * 8 bytes per cell of rays (a char per direction) and 8 more of back off outcomes (a char per facing) as robots need
+ * them, so the default limit of 16M cells keeps the cached rooms within about 270 MB.
+ */
+public class RoomCache {
+
+    public static final String MAX_ROOMS_PROPERTY = "rumba.roomCache.maxRooms";
+    public static final String MAX_CELLS_PROPERTY = "rumba.roomCache.maxCells";
+
+    private static final RoomCache instance = new RoomCache(
+            Integer.getInteger(MAX_ROOMS_PROPERTY, 1024),
+            Long.getLong(MAX_CELLS_PROPERTY, 16L << 20));
+
+    private final int maxRooms;
+    private final long maxCells;
+    private final LinkedHashMap<ByteBuffer, Room> rooms = new LinkedHashMap<>(16, 0.75f, true);     // access order
+    private long cells;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    RoomCache(int maxRooms, long maxCells) {
+        this.maxRooms = maxRooms;
+        this.maxCells = maxCells;
+    }
+
+    public static RoomCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the cached room with the same cells, or caches and returns a new one.
+     *
+     * @param cells row-major cell codes; not to be modified after this call
+     */
+    public Room get(int width, int height, byte[] cells) {
+        long size = (long) width * height;
+        if (size > maxCells || maxRooms <= 0) {
+            synchronized (this) {
+                misses++;
+            }
+            return new Room(width, height, cells);
+        }
+        ByteBuffer key = key(width, height, cells);   // hashed outside of the lock
+        synchronized (this) {
+            Room room = rooms.get(key);
+            if (room != null) {
+                hits++;
+                return room;
+            }
+            misses++;
+        }
+        Room room = new Room(width, height, cells);     // built outside of the lock too
+        synchronized (this) {
+            Room cached = rooms.putIfAbsent(key, room);
+            if (cached != null) {
+                return cached;      // another job has built it meanwhile
+            }
+            this.cells += size;
+            evict();
+            return room;
+        }
+    }
+
+    private void evict() {
+        Iterator<Room> eldest = rooms.values().iterator();
+        while (rooms.size() > maxRooms || cells > maxCells) {
+            Room room = eldest.next();
+            eldest.remove();
+            cells -= (long) room.getWidth() * room.getHeight();
+            evictions++;
+        }
+    }
+
+    private static ByteBuffer key(int width, int height, byte[] cells) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);     // every JRE has got SHA-256
+        }
+        digest.update(ByteBuffer.allocate(8).putInt(width).putInt(height).array());
+        digest.update(cells);
+        return ByteBuffer.wrap(digest.digest());
+    }
+
+    public synchronized void clear() {
+        rooms.clear();
+        cells = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int getSize() {
+        return rooms.size();
+    }
+
+    public synchronized long getCells() {
+        return cells;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long lookups = hits + misses;
+        return String.format("room cache: %d rooms (%d cells); hits: %d (%.1f %%), misses: %d, evictions: %d",
+                rooms.size(), cells, hits, lookups > 0 ? 100.0 * hits / lookups : 0.0, misses, evictions);
+    }
+}
@@ -0,0 +1,118 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.exc.InvalidInputException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary room map: a {@value #HEADER_SIZE} byte header (magic "RUMB", version, width, height; big-endian
+ * ints) followed by 2 bits per cell (see {@link PackedGrid}). Rooms are opened by memory mapping the file; cells are
+ * read straight from the mapping, so the map stays off the heap. Opening only validates the cells, in parallel and
+ * 32 cells a word.
+ */
+public class RoomFile {
+    private static final Logger log = LogManager.getLogger(RoomFile.class);
+
+    public static final String APP_NAME = "cleaning_robot_map";
+    public static final String OPTION = "--map";
+
+    static final int MAGIC = 0x52554d42;    // "RUMB"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private RoomFile() {
+    }
+
+    /**
+     * Converts the map of an input JSON into a binary map.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            log.error(String.format("Usage: %s <source.json> <room.bin>\nProvide exactly 2 parameters!", APP_NAME));
+            System.exit(Main.ERR_INVALID_PARAMETERS);
+        }
+        File inputFile = new File(args[0]);
+        File outputFile = new File(args[1]);
+        Room room = null;
+        try {
+            room = StreamingInputReader.readRoom(inputFile);
+        } catch (IOException e) {
+            log.error(String.format("Can't read the room map from %s.", inputFile.getAbsolutePath()), e);
+            System.exit(Main.ERR_INVALID_INPUT);
+        }
+        try {
+            write(room, outputFile);
+        } catch (IOException e) {
+            log.error(String.format("Can't write the room map to %s.", outputFile.getAbsolutePath()), e);
+            System.exit(Main.ERR_INVALID_OUTPUT);
+        }
+        log.info(String.format("Converted %d x %d room to %s (%d bytes)", room.getWidth(), room.getHeight(), outputFile.getAbsolutePath(), outputFile.length()));
+    }
+
+    /**
+     * Maps the file read-only; the mapping stays valid after the file is closed.
+     *
+     * @throws InvalidInputException when the file is not a binary map.
+     */
+    public static Room open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new InvalidInputException(String.format("Not a binary room map: %s is too short.", file));
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new InvalidInputException(String.format("Not a binary room map: %s has no magic.", file));
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new InvalidInputException(String.format("Unsupported version of binary room map: %d.", version));
+            }
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            if (width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE) {
+                throw new InvalidInputException(String.format("Invalid size of binary room map: %d x %d.", width, height));
+            }
+            if (size - HEADER_SIZE < PackedGrid.bytes(width, height)) {
+                throw new InvalidInputException(String.format("Binary room map is truncated; expected %d bytes of cells, got %d.", PackedGrid.bytes(width, height), size - HEADER_SIZE));
+            }
+            ByteBuffer cells = buffer.slice();
+            long invalid = MapValidator.firstInvalidCell(cells, (long) width * height);
+            if (invalid >= 0) {
+                throw new InvalidInputException(String.format("Invalid cell code in the binary room map at %d, %d.", invalid % width, invalid / width));
+            }
+            return new Room(new PackedGrid(width, height, cells));
+        }
+    }
+
+    /**
+     * Writes the room's cells as they are read, so no second copy of the room is held in memory.
+     */
+    public static void write(Room room, File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath()), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(room.getWidth());
+            out.writeInt(room.getHeight());
+            int size = room.getWidth() * room.getHeight();
+            for (int i = 0; i < size; ) {      // never past size, which may be close to Integer.MAX_VALUE
+                int b = 0;
+                for (int j = 0; j < 4 && i < size; j++, i++) {
+                    b |= room.getCell(i) << (j << 1);
+                }
+                out.write(b);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.data.Position;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Coverage of many robots running at once on one room (see {@link Fleet}). Bits are set lock-free, a word at a time,
+ * with compare-and-set; a bit that is set already is only read, so robots going over covered cells do not keep
+ * writing to the shared words.
+ * <p>
+ * Cell sets returned by {@link #getVisited()} and {@link #getCleaned()} are snapshots taken at the call.
+ */
+public class SharedCoverage extends Coverage {
+
+    private final AtomicLongArray visited;
+    private final AtomicLongArray cleaned;
+
+    public SharedCoverage(int width, int height) {
+        super(width, height, false);
+        int words = words(width, height);
+        this.visited = new AtomicLongArray(words);
+        this.cleaned = new AtomicLongArray(words);
+    }
+
+    @Override
+    public boolean visit(int index) {
+        return set(visited, index);
+    }
+
+    @Override
+    public void visit(int start, int step, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (step == 1 || step == -1) {
+            int end = start + step * (count - 1);
+            setRange(visited, Math.min(start, end), Math.max(start, end));
+        } else {
+            for (int i = 0, index = start; i < count; i++, index += step) {
+                set(visited, index);
+            }
+        }
+    }
+
+    @Override
+    public boolean clean(int index) {
+        return set(cleaned, index);
+    }
+
+    @Override
+    public boolean isVisited(int index) {
+        return (visited.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean isCleaned(int index) {
+        return (cleaned.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * @return true if this call has set the bit.
+     */
+    private static boolean set(AtomicLongArray bits, int index) {
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long old = bits.get(word);
+        while ((old & mask) == 0) {
+            if (bits.compareAndSet(word, old, old | mask)) {
+                return true;
+            }
+            old = bits.get(word);
+        }
+        return false;
+    }
+
+    private static void or(AtomicLongArray bits, int word, long mask) {
+        long old = bits.get(word);
+        while ((old & mask) != mask && !bits.compareAndSet(word, old, old | mask)) {
+            old = bits.get(word);
+        }
+    }
+
+    /**
+     * Same as {@link Coverage#setRange(long[], int, int)}; the inner words are just overwritten since all their bits
+     * are to be set.
+     */
+    private static void setRange(AtomicLongArray bits, int from, int to) {
+        int first = from >>> 6;
+        int last = to >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> (63 - (to & 63));
+        if (first == last) {
+            or(bits, first, firstMask & lastMask);
+            return;
+        }
+        or(bits, first, firstMask);
+        for (int w = first + 1; w < last; w++) {
+            bits.set(w, -1L);
+        }
+        or(bits, last, lastMask);
+    }
+
+    private static long[] snapshot(AtomicLongArray bits) {
+        long[] copy = new long[bits.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = bits.get(i);
+        }
+        return copy;
+    }
+
+    @Override
+    public Set<Position> getVisited() {
+        return new CellSet(getVisitedBits(), getWidth(), getHeight());
+    }
+
+    @Override
+    public Set<Position> getCleaned() {
+        return new CellSet(getCleanedBits(), getWidth(), getHeight());
+    }
+
+    @Override
+    long[] getVisitedBits() {
+        return snapshot(visited);
+    }
+
+    @Override
+    long[] getCleanedBits() {
+        return snapshot(cleaned);
+    }
+}
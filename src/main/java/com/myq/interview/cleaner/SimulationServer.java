@@ -0,0 +1,169 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.data.Output;
+import com.myq.interview.cleaner.exc.InvalidInputException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the JVM warm and runs the robot over HTTP: POST the input JSON to {@value #PATH} and get the output JSON back.
+ * <p>
+ * Requests are run on a fixed pool of workers. Only a bounded number of requests may wait for a worker; above that,
+ * the server answers 503 right away instead of queueing more work.
+ */
+public class SimulationServer {
+    private static final Logger log = LogManager.getLogger(SimulationServer.class);
+
+    public static final String APP_NAME = "cleaning_robot_server";
+    public static final String PATH = "/simulate";
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_BAD_REQUEST = 400;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_BAD_METHOD = 405;
+    private static final int HTTP_INTERNAL_ERROR = 500;
+    private static final int HTTP_UNAVAILABLE = 503;
+
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final Semaphore admitted;       // requests being run or waiting for a worker
+
+    /**
+     * @param port    0 to pick any free port
+     * @param threads number of workers
+     * @param backlog how many requests may wait for a worker
+     */
+    public SimulationServer(int port, int threads, int backlog) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        workers = Executors.newFixedThreadPool(threads);
+        admitted = new Semaphore(threads + backlog);
+        server.createContext("/", this::admit);     // runs on the server's dispatcher thread; must not block
+    }
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int port = DEFAULT_PORT;
+        try {
+            if (args.length > 1) {
+                throw new IllegalArgumentException("Provide at most 1 parameter!");
+            }
+            if (args.length == 1) {
+                port = Integer.parseInt(args[0]);
+            }
+        } catch (IllegalArgumentException e) {
+            log.error(String.format("Usage: %s [port]\n%s", APP_NAME, e.getMessage()));
+            System.exit(Main.ERR_INVALID_PARAMETERS);
+        }
+        try {
+            SimulationServer server = new SimulationServer(port, threads, 4 * threads);
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        } catch (IOException e) {
+            log.error(String.format("Can't listen on port %d.", port), e);
+            System.exit(Main.ERR_INVALID_PARAMETERS);
+        }
+    }
+
+    public void start() {
+        server.start();
+        log.info(String.format("Listening on http://localhost:%d%s", getPort(), PATH));
+    }
+
+    public void stop() {
+        server.stop(0);
+        workers.shutdown();
+        try {
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info(RoomCache.getInstance());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void admit(HttpExchange exchange) throws IOException {
+        if (!PATH.equals(exchange.getRequestURI().getPath())) {
+            respond(exchange, HTTP_NOT_FOUND, "Not found; use " + PATH);
+            return;
+        }
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            respond(exchange, HTTP_BAD_METHOD, "Only POST is supported");
+            return;
+        }
+        if (!admitted.tryAcquire()) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, HTTP_UNAVAILABLE, "Too many requests; try again later");
+            return;
+        }
+        workers.execute(() -> {
+            try {
+                simulate(exchange);
+            } finally {
+                admitted.release();
+            }
+        });
+    }
+
+    private void simulate(HttpExchange exchange) {
+        try {
+            JobMetrics metrics = new JobMetrics();
+            long started = System.nanoTime();
+            Mission mission;
+            try (InputStream body = exchange.getRequestBody()) {
+                mission = StreamingInputReader.read(body, RoomCache.getInstance(), metrics);
+            } catch (InvalidInputException e) {
+                respond(exchange, HTTP_BAD_REQUEST, e.getMessage());
+                return;
+            } catch (IOException e) {
+                respond(exchange, HTTP_BAD_REQUEST, String.format("Can't parse the input JSON: %s", e.getMessage()));
+                return;
+            }
+            metrics.addPhase(JobMetrics.PHASE_PARSE, System.nanoTime() - started - metrics.getPhaseNanos(JobMetrics.PHASE_VALIDATE));
+            Output output = new Robot(mission, metrics).work();
+            started = System.nanoTime();
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(HTTP_OK, 0);   // chunked
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                StreamingOutputWriter.write(output, responseBody);
+            }
+            metrics.addPhase(JobMetrics.PHASE_SERIALIZE, System.nanoTime() - started);
+        } catch (IOException e) {
+            log.error("Can't send the response", e);
+        } catch (RuntimeException e) {
+            log.error("Simulation failed", e);
+            try {
+                respond(exchange, HTTP_INTERNAL_ERROR, "Simulation failed");
+            } catch (IOException ignored) {
+                // the response has been started already
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] bytes = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+}
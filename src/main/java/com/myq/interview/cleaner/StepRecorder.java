@@ -0,0 +1,95 @@
+package com.myq.interview.cleaner;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records every step of a robot as a fixed-size binary record; records are collected in a preallocated buffer that
+ * is written to the file in large chunks whenever it fills up, and reused.
+ * <p>
+ * Layout (big-endian): a {@value #HEADER_SIZE} byte header (magic "RUMT", version, room width and height, start X,
+ * start Y, start facing, battery; ints), then {@value #RECORD_SIZE} byte records: opcode, flags (see FLAG_*), facing
+ * (bytes), one unused byte, X, Y and battery (ints); all taken after the command. See {@link TraceReader}.
+ */
+public class StepRecorder implements Closeable {
+
+    static final int MAGIC = 0x52554d54;    // "RUMT"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 16;
+
+    public static final int FLAG_BLOCKED = 1;       // the move was prevented by an obstacle
+    public static final int FLAG_BACKOFF = 2;       // the command is a part of a back off strategy
+    public static final int FLAG_LOW_BATTERY = 4;   // the command was not executed for lack of energy
+
+    public static final String OPTION = "--trace";
+    private static final int DEFAULT_RECORDS = 1 << 16;     // 1 MiB
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates the trace file and writes its header.
+     */
+    public StepRecorder(File file, Mission mission) throws IOException {
+        this(file, mission, DEFAULT_RECORDS);
+    }
+
+    StepRecorder(File file, Mission mission, int bufferedRecords) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = ByteBuffer.allocateDirect(Math.max(HEADER_SIZE, bufferedRecords * RECORD_SIZE));
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(mission.getRoom().getWidth());
+        buffer.putInt(mission.getRoom().getHeight());
+        buffer.putInt(mission.getStart().getX());
+        buffer.putInt(mission.getStart().getY());
+        buffer.putInt(Robot.DIRECTION_MAP.get(mission.getStart().getFacing()));
+        buffer.putInt(mission.getBattery());
+    }
+
+    /**
+     * @param facing index to Robot.DIRECTION
+     * @throws UncheckedIOException when the buffer can't be written to the file.
+     */
+    public void record(byte op, int flags, int x, int y, int facing, int battery) {
+        if (buffer.remaining() < RECORD_SIZE) {
+            flush();
+        }
+        buffer.put(op);
+        buffer.put((byte) flags);
+        buffer.put((byte) facing);
+        buffer.put((byte) 0);
+        buffer.putInt(x);
+        buffer.putInt(y);
+        buffer.putInt(battery);
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't write the trace", e);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            channel.close();
+        }
+    }
+}
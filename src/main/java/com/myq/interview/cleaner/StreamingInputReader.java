@@ -0,0 +1,517 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.myq.interview.cleaner.data.Input;
+import com.myq.interview.cleaner.data.Position;
+import com.myq.interview.cleaner.data.RobotPosition;
+import com.myq.interview.cleaner.exc.InvalidInputException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static com.myq.interview.cleaner.InputOutputParser.*;
+
+/**
+ * Reads the input JSON token by token. The map goes straight into packed cell codes and the commands into opcodes,
+ * so memory stays proportional to the room (and one byte per command) rather than to the JSON tree.
+ * <p>
+ * Validation happens on the fly, but problems are only remembered while reading; they are reported in the very same
+ * order and with the very same messages as {@link InputOutputParser#getInput()} does.
+ * <p>
+ * Callers running many jobs in one JVM (batches, the server) may have rooms taken from a {@link RoomCache}, so jobs on
+ * the same floor plan share one room; a single run builds its room straight away, as it has nothing to share it with.
+ */
+public class StreamingInputReader {
+
+    private static final JsonFactory factory = new JsonFactory();
+
+    private Integer battery;
+
+    private boolean hasCommands;
+    private ByteArray program;
+    private boolean hasUnknownCommand;
+    private String unknownCommand;          // first one
+
+    private boolean hasMap;
+    private ByteArray cells;                // rows one after another; without padding
+    private IntArray rowLengths;            // -1 for null rows
+    private int width;                      // the longest row
+    private String mapError;                // first one
+
+    private RobotPosition start;
+
+    private final Room room;                // given as a binary map; null when the map is in the JSON
+    private final RoomCache cache;          // where the map of the JSON goes; null not to cache it
+    private final JobMetrics metrics;       // validation time goes there
+
+    private StreamingInputReader(Room room, RoomCache cache, JobMetrics metrics) {
+        this.room = room;
+        this.cache = cache;
+        this.metrics = metrics;
+    }
+
+    public static Mission read(File file) throws IOException {
+        return read(file, null, new JobMetrics());
+    }
+
+    /**
+     * Reads the start, commands and battery from the JSON; the map comes from the given room (see {@link RoomFile}).
+     * A map in the JSON, if any, is skipped unread.
+     */
+    public static Mission read(File file, Room room) throws IOException {
+        return read(file, room, new JobMetrics());
+    }
+
+    /**
+     * @param room    null to read the map from the JSON
+     * @param metrics where to record the validation time
+     */
+    public static Mission read(File file, Room room, JobMetrics metrics) throws IOException {
+        return read(file, room, null, metrics);
+    }
+
+    /**
+     * @param room    null to read the map from the JSON
+     * @param cache   where to look the map of the JSON up; null to build the room without caching it
+     * @param metrics where to record the validation time
+     */
+    public static Mission read(File file, Room room, RoomCache cache, JobMetrics metrics) throws IOException {
+        try (JsonParser parser = factory.createParser(file)) {
+            return new StreamingInputReader(room, cache, metrics).read(parser);
+        }
+    }
+
+    public static Mission read(InputStream inputStream) throws IOException {
+        return read(inputStream, new JobMetrics());
+    }
+
+    public static Mission read(InputStream inputStream, JobMetrics metrics) throws IOException {
+        return read(inputStream, null, metrics);
+    }
+
+    /**
+     * @param cache where to look the map up; null to build the room without caching it
+     */
+    public static Mission read(InputStream inputStream, RoomCache cache, JobMetrics metrics) throws IOException {
+        try (JsonParser parser = factory.createParser(inputStream)) {
+            return new StreamingInputReader(null, cache, metrics).read(parser);
+        }
+    }
+
+    /**
+     * Reads just the map; it may be given either as an input JSON (other fields are skipped) or as a bare array.
+     */
+    public static Room readRoom(File file) throws IOException {
+        try (JsonParser parser = factory.createParser(file)) {
+            return new StreamingInputReader(null, null, new JobMetrics()).readRoom(parser);
+        }
+    }
+
+    private Room readRoom(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            readMap(parser);
+        } else if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if ("map".equals(name)) {
+                    readMap(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else {
+            throw new InvalidInputException(MSG_NO_MAP);
+        }
+        if (!hasMap) {
+            throw new InvalidInputException(MSG_NO_MAP);
+        }
+        if (rowLengths.size() > 0 && rowLengths.get(0) < 0) {
+            throw new InvalidInputException(MSG_INVALID_INPUT);    // the first row is null
+        }
+        if (mapError != null) {
+            throw new InvalidInputException(mapError);
+        }
+        return new Room(width, rowLengths.size(), buildGrid());
+    }
+
+    private Mission read(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new InvalidInputException("No content to map due to end-of-input");
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw mismatch(Input.class.getName(), token);
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case "map":
+                    if (room != null) {
+                        parser.skipChildren();  // superseded by the binary map
+                        break;
+                    }
+                    readMap(parser);
+                    break;
+                case "start":
+                    start = readStart(parser);
+                    break;
+                case "commands":
+                    readCommands(parser);
+                    break;
+                case "battery":
+                    battery = readInt(parser);
+                    break;
+                default:
+                    throw unrecognized(name, Input.class, "\"map\", \"start\", \"commands\", \"battery\"");
+            }
+        }
+        long started = System.nanoTime();
+        try {
+            verify();
+        } finally {
+            metrics.addPhase(JobMetrics.PHASE_VALIDATE, System.nanoTime() - started);
+        }
+        Room missionRoom = room != null ? room
+                : cache != null ? cache.get(width, rowLengths.size(), buildGrid())
+                : new Room(width, rowLengths.size(), buildGrid());
+        return new Mission(missionRoom, start, program.toArray(), battery);
+    }
+
+    private void readMap(JsonParser parser) throws IOException {
+        hasMap = false;
+        width = 0;
+        mapError = null;
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw mismatch("java.lang.Character[][]", token);
+        }
+        hasMap = true;
+        cells = new ByteArray();
+        rowLengths = new IntArray();
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_NULL) {
+                rowLengths.add(-1);
+                if (mapError == null) {
+                    mapError = MSG_INVALID_MAP;
+                }
+                continue;
+            }
+            if (token == JsonToken.VALUE_STRING) {
+                throw new InvalidInputException(String.format("Cannot construct instance of `java.lang.Character[]`: no String-argument constructor/factory method to deserialize from String value ('%s')", parser.getText()));
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw mismatch("java.lang.Character[]", token);
+            }
+            int length = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                Character c = readCell(parser);
+                byte cell = Room.toCell(c);
+                if (cell == Room.NO_ROOM && c != Room.NO_ROOM_NULL_CHAR && mapError == null) {
+                    mapError = String.format(MSG_INVALID_MAP_CHAR, c);
+                }
+                cells.add(cell);
+                length++;
+            }
+            int y = rowLengths.size();
+            if (y > 0 && length != rowLengths.get(0) && mapError == null) {
+                mapError = String.format(MSG_RAGGED_MAP, y, length, rowLengths.get(0));     // first row is not null here
+            }
+            rowLengths.add(length);
+            width = Math.max(width, length);
+        }
+    }
+
+    private static Character readCell(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        switch (token) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                int length = parser.getTextLength();
+                if (length == 1) {
+                    return parser.getTextCharacters()[parser.getTextOffset()];     // no String instance
+                }
+                if (length == 0) {
+                    return null;
+                }
+                throw new InvalidInputException(String.format("Cannot deserialize value of type `java.lang.Character` from String \"%s\": Expected either Integer value code or 1-character String", parser.getText()));
+            case VALUE_NUMBER_INT:
+                int code = parser.getIntValue();
+                if (code >= Character.MIN_VALUE && code <= Character.MAX_VALUE) {
+                    return (char) code;
+                }
+                throw new InvalidInputException(String.format("Cannot deserialize value of type `java.lang.Character` from number %d: value outside valid Character range", code));
+        }
+        throw mismatch("java.lang.Character", token);
+    }
+
+    private void readCommands(JsonParser parser) throws IOException {
+        hasCommands = false;
+        hasUnknownCommand = false;
+        unknownCommand = null;
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw mismatch("[Ljava.lang.String;", token);
+        }
+        hasCommands = true;
+        program = new ByteArray();
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (!token.isScalarValue()) {
+                throw mismatch("java.lang.String", token);
+            }
+            byte op = token == JsonToken.VALUE_STRING
+                    ? Robot.compile(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())
+                    : Robot.OP_UNKNOWN;
+            if (op == Robot.OP_UNKNOWN && !hasUnknownCommand) {
+                hasUnknownCommand = true;
+                unknownCommand = readString(parser);
+            }
+            program.add(op);
+        }
+    }
+
+    private static RobotPosition readStart(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw mismatch(RobotPosition.class.getName(), token);
+        }
+        RobotPosition position = new RobotPosition();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case "X":
+                    position.setX(readInt(parser));
+                    break;
+                case "Y":
+                    position.setY(readInt(parser));
+                    break;
+                case "facing":
+                    position.setFacing(readString(parser));
+                    break;
+                case "position":
+                    position.setPosition(readPosition(parser));
+                    break;
+                default:
+                    throw unrecognized(name, RobotPosition.class, "\"X\", \"Y\", \"facing\", \"position\"");
+            }
+        }
+        return position;
+    }
+
+    private static Position readPosition(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token != JsonToken.START_OBJECT) {
+            throw mismatch(Position.class.getName(), token);
+        }
+        Position position = new Position();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case "X":
+                    position.setX(readInt(parser));
+                    break;
+                case "Y":
+                    position.setY(readInt(parser));
+                    break;
+                default:
+                    throw unrecognized(name, Position.class, "\"X\", \"Y\"");
+            }
+        }
+        return position;
+    }
+
+    private static Integer readInt(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        switch (token) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getIntValue();
+            case VALUE_STRING:
+                String text = parser.getText().trim();
+                if (text.isEmpty()) {
+                    return null;
+                }
+                try {
+                    return Integer.parseInt(text);
+                } catch (NumberFormatException e) {
+                    throw new InvalidInputException(String.format("Cannot deserialize value of type `int` from String \"%s\": not a valid `int` value", text));
+                }
+        }
+        throw mismatch("int", token);
+    }
+
+    private static String readString(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return parser.getText();
+        }
+        throw mismatch("java.lang.String", token);
+    }
+
+    /**
+     * Reports the first problem in the same order as {@link InputOutputParser#getInput()} does.
+     */
+    private void verify() throws InvalidInputException {
+        if (battery == null) {
+            throw new InvalidInputException(MSG_NO_BATTERY);
+        }
+        if (battery < 0) {
+            throw new InvalidInputException(String.format(MSG_NEGATIVE_BATTERY, battery));
+        }
+        if (!hasCommands) {
+            throw new InvalidInputException(MSG_NO_COMMANDS);
+        }
+        if (!hasMap && room == null) {
+            throw new InvalidInputException(MSG_NO_MAP);
+        }
+        if (start == null) {
+            throw new InvalidInputException(MSG_NO_START);
+        }
+        Integer x = start.getX();
+        if (x == null) {
+            throw new InvalidInputException(MSG_NO_START_X);
+        }
+        Integer y = start.getY();
+        if (y == null) {
+            throw new InvalidInputException(MSG_NO_START_Y);
+        }
+        if (y < 0 || y >= rows() || x < 0) {
+            throw new InvalidInputException(String.format(MSG_START_OUT_OF_ROOM, x, y));
+        }
+        if (rowLength(0) < 0) {
+            throw new InvalidInputException(MSG_INVALID_INPUT);    // the first row is null
+        }
+        if (x >= rowLength(0)) {
+            throw new InvalidInputException(String.format(MSG_START_OUT_OF_ROOM, x, y));
+        }
+        if (mapError != null) {
+            throw new InvalidInputException(mapError);
+        }
+        if (Robot.DIRECTION_MAP.get(start.getFacing()) == null) {
+            throw new InvalidInputException(String.format(MSG_UNKNOWN_FACING, start.getFacing()));
+        }
+        if (hasUnknownCommand) {
+            throw new InvalidInputException(String.format(MSG_UNKNOWN_COMMAND, unknownCommand));
+        }
+        byte cell = room != null ? room.getCell(room.index(x, y)) : cells.get(y * width + x);   // rows are not ragged
+        if (cell != Room.SPACE) {
+            throw new InvalidInputException(String.format(MSG_START_NOT_ON_SPACE, Room.SPACE_CHAR, Room.toChar(cell)));
+        }
+    }
+
+    private int rows() {
+        return room != null ? room.getHeight() : rowLengths.size();
+    }
+
+    private int rowLength(int y) {
+        return room != null ? room.getWidth() : rowLengths.get(y);
+    }
+
+    /**
+     * @return row-major cell codes of the whole room; valid maps only (rows are not ragged).
+     */
+    private byte[] buildGrid() {
+        return cells.toArray();
+    }
+
+    private static InvalidInputException unrecognized(String name, Class<?> type, String knownProperties) {
+        int count = knownProperties.split(",").length;
+        return new InvalidInputException(String.format("Unrecognized field \"%s\" (class %s), not marked as ignorable (%d known properties: %s])", name, type.getName(), count, knownProperties));
+    }
+
+    private static InvalidInputException mismatch(String type, JsonToken token) {
+        return new InvalidInputException(String.format("Cannot deserialize value of type `%s` from %s (token `JsonToken.%s`)", type, describe(token), token));
+    }
+
+    private static String describe(JsonToken token) {
+        switch (token) {
+            case START_ARRAY:
+                return "Array value";
+            case START_OBJECT:
+                return "Object value";
+            case VALUE_STRING:
+                return "String value";
+            case VALUE_NUMBER_INT:
+                return "Integer value";
+            case VALUE_NUMBER_FLOAT:
+                return "Floating-point value";
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return "Boolean value";
+        }
+        return "token";
+    }
+
+    /**
+     * Growable array of bytes.
+     */
+    static class ByteArray {
+        private byte[] array = new byte[1024];
+        private int size;
+
+        void add(byte b) {
+            if (size == array.length) {
+                array = Arrays.copyOf(array, array.length << 1);
+            }
+            array[size++] = b;
+        }
+
+        byte get(int index) {
+            return array[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toArray() {
+            return array.length == size ? array : Arrays.copyOf(array, size);
+        }
+    }
+
+    /**
+     * Growable array of ints.
+     */
+    static class IntArray {
+        private int[] array = new int[64];
+        private int size;
+
+        void add(int i) {
+            if (size == array.length) {
+                array = Arrays.copyOf(array, array.length << 1);
+            }
+            array[size++] = i;
+        }
+
+        int get(int index) {
+            return array[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.myq.interview.cleaner.data.Output;
+import com.myq.interview.cleaner.data.Position;
+import com.myq.interview.cleaner.data.RobotPosition;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Set;
+
+/**
+ * Writes the output JSON token by token; the bytes are the same as the ones produced by serializing {@link Output}
+ * with a default ObjectMapper. Cells of coverage backed sets are read directly from the bitsets, so no
+ * {@link Position} is created for them.
+ */
+public class StreamingOutputWriter {
+
+    private static final JsonFactory factory = new JsonFactory();
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private StreamingOutputWriter() {
+    }
+
+    public static void write(Output output, File file) throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file.toPath()), BUFFER_SIZE)) {
+            write(output, outputStream);
+        }
+    }
+
+    /**
+     * Writes the output to the given stream; the stream is flushed, but left open.
+     */
+    public static void write(Output output, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = factory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            writeCells(generator, "visited", output.getVisited());
+            writeCells(generator, "cleaned", output.getCleaned());
+            RobotPosition position = output.getFinal();
+            if (position != null) {
+                generator.writeObjectFieldStart("final");
+                writeCoordinates(generator, position.getX(), position.getY());
+                if (position.getFacing() != null) {
+                    generator.writeStringField("facing", position.getFacing());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeNumberField("battery", output.getBattery());
+            generator.writeEndObject();
+        }
+    }
+
+    static void writeCells(JsonGenerator generator, String name, Set<Position> cells) throws IOException {
+        if (cells == null) {
+            return;
+        }
+        generator.writeArrayFieldStart(name);
+        if (cells instanceof Coverage.CellSet) {
+            Coverage.CellSet cellSet = (Coverage.CellSet) cells;
+            int width = cellSet.getWidth();
+            for (int index = cellSet.nextCell(0); index >= 0; index = cellSet.nextCell(index + 1)) {
+                generator.writeStartObject();
+                generator.writeNumberField("X", index % width);
+                generator.writeNumberField("Y", index / width);
+                generator.writeEndObject();
+            }
+        } else {
+            for (Position position : cells) {
+                generator.writeStartObject();
+                writeCoordinates(generator, position.getX(), position.getY());
+                generator.writeEndObject();
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    static void writeCoordinates(JsonGenerator generator, Integer x, Integer y) throws IOException {
+        if (x != null) {
+            generator.writeNumberField("X", x);
+        }
+        if (y != null) {
+            generator.writeNumberField("Y", y);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.data.Position;
+
+import java.util.Set;
+
+import static com.myq.interview.cleaner.TiledGrid.MASK;
+import static com.myq.interview.cleaner.TiledGrid.SHIFT;
+import static com.myq.interview.cleaner.TiledGrid.TILE;
+
+/**
+ * Coverage of a tiled room (see {@link TiledGrid}): a bitset per tile, one word per row of the tile, allocated as the
+ * robot first gets into the tile. Tiles out of room are never entered, so they never take memory.
+ * <p>
+ * The flat bitsets of {@link #getVisitedBits()} and {@link #getCleanedBits()} are built at the call; cell sets are
+ * iterated straight from the tiles.
+ */
+public class TiledCoverage extends Coverage {
+
+    private final int tilesX;
+    private final long[][] visited;
+    private final long[][] cleaned;
+
+    public TiledCoverage(int width, int height) {
+        super(width, height, false);
+        this.tilesX = (width + MASK) >> SHIFT;
+        int tiles = tilesX * ((height + MASK) >> SHIFT);
+        this.visited = new long[tiles][];
+        this.cleaned = new long[tiles][];
+    }
+
+    /**
+     * Continues from the given flat bitmaps (e.g. of a {@link Checkpoint}).
+     */
+    TiledCoverage(int width, int height, long[] visited, long[] cleaned) {
+        this(width, height);
+        for (int i = nextSetBit(visited, 0); i >= 0; i = nextSetBit(visited, i + 1)) {
+            set(this.visited, i);
+        }
+        for (int i = nextSetBit(cleaned, 0); i >= 0; i = nextSetBit(cleaned, i + 1)) {
+            set(this.cleaned, i);
+        }
+    }
+
+    @Override
+    public boolean visit(int index) {
+        return set(visited, index);
+    }
+
+    @Override
+    public void visit(int start, int step, int count) {
+        for (int i = 0, index = start; i < count; i++, index += step) {
+            set(visited, index);
+        }
+    }
+
+    @Override
+    public boolean clean(int index) {
+        return set(cleaned, index);
+    }
+
+    @Override
+    public boolean isVisited(int index) {
+        return get(visited, index);
+    }
+
+    @Override
+    public boolean isCleaned(int index) {
+        return get(cleaned, index);
+    }
+
+    private boolean set(long[][] tiles, int index) {
+        int x = index % getWidth();
+        int y = index / getWidth();
+        int t = (y >> SHIFT) * tilesX + (x >> SHIFT);
+        long[] tile = tiles[t];
+        if (tile == null) {
+            tile = tiles[t] = new long[TILE];
+        }
+        long mask = 1L << x;        // shift distance is taken modulo 64
+        long old = tile[y & MASK];
+        tile[y & MASK] = old | mask;
+        return (old & mask) == 0;
+    }
+
+    private boolean get(long[][] tiles, int index) {
+        int x = index % getWidth();
+        int y = index / getWidth();
+        long[] tile = tiles[(y >> SHIFT) * tilesX + (x >> SHIFT)];
+        return tile != null && (tile[y & MASK] & 1L << x) != 0;
+    }
+
+    @Override
+    public Set<Position> getVisited() {
+        return new TiledCellSet(visited, getWidth(), getHeight());
+    }
+
+    @Override
+    public Set<Position> getCleaned() {
+        return new TiledCellSet(cleaned, getWidth(), getHeight());
+    }
+
+    @Override
+    long[] getVisitedBits() {
+        return new TiledCellSet(visited, getWidth(), getHeight()).getBits();
+    }
+
+    @Override
+    long[] getCleanedBits() {
+        return new TiledCellSet(cleaned, getWidth(), getHeight()).getBits();
+    }
+
+    /**
+     * Read-only set of positions backed by the tiles; a flat bitset is built only when asked for.
+     */
+    static class TiledCellSet extends CellSet {
+        private final long[][] tiles;
+        private final int tilesX;
+
+        TiledCellSet(long[][] tiles, int width, int height) {
+            super(null, width, height);
+            this.tiles = tiles;
+            this.tilesX = (width + MASK) >> SHIFT;
+        }
+
+        @Override
+        long[] getBits() {
+            long[] bits = new long[words(getWidth(), getHeight())];
+            for (int i = nextCell(0); i >= 0; i = nextCell(i + 1)) {
+                bits[i >>> 6] |= 1L << i;
+            }
+            return bits;
+        }
+
+        /**
+         * Goes row by row through the tiles the row crosses, skipping the ones never entered.
+         */
+        @Override
+        int nextCell(int from) {
+            int width = getWidth();
+            if (from >= width * getHeight()) {
+                return -1;
+            }
+            int x = from % width;
+            for (int y = from / width; y < getHeight(); y++, x = 0) {
+                int row = (y >> SHIFT) * tilesX;
+                for (int tx = x >> SHIFT; tx < tilesX; tx++) {
+                    long[] tile = tiles[row + tx];
+                    if (tile == null) {
+                        continue;
+                    }
+                    long word = tile[y & MASK];
+                    if (tx == x >> SHIFT) {
+                        word &= -1L << x;
+                    }
+                    if (word != 0) {
+                        return y * width + (tx << SHIFT) + Long.numberOfTrailingZeros(word);
+                    }
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (long[] tile : tiles) {
+                if (tile != null) {
+                    for (long word : tile) {
+                        size += Long.bitCount(word);
+                    }
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Position)) {
+                return false;
+            }
+            Position p = (Position) o;
+            if (p.getX() == null || p.getY() == null || p.getX() < 0 || p.getX() >= getWidth() || p.getY() < 0 || p.getY() >= getHeight()) {
+                return false;
+            }
+            long[] tile = tiles[(p.getY() >> SHIFT) * tilesX + (p.getX() >> SHIFT)];
+            return tile != null && (tile[p.getY() & MASK] & 1L << p.getX()) != 0;
+        }
+    }
+}
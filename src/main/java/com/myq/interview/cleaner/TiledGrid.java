@@ -0,0 +1,217 @@
+package com.myq.interview.cleaner;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cells in square tiles of {@value #TILE} x {@value #TILE}, each tile row-major within itself. A tile of a single code
+ * (all out of room, all columns or all space) is one array shared by every such tile, so only the tiles mixing codes
+ * take memory of their own. Meant for sprawling floors whose bounding box is mostly out of room; rooms pick it by
+ * themselves (see {@link #isSparse(int, int, byte[])}).
+ * <p>
+ * Free cells in front of a cell (see {@link Room#freeCells(int, int)}) are kept per tile as well and are summed
+ * along the tiles a ray crosses.
+ */
+final class TiledGrid implements Grid {
+
+    static final int SHIFT = 6;
+    static final int TILE = 1 << SHIFT;
+    static final int MASK = TILE - 1;
+
+    public static final String MIN_EMPTY_PERCENT_PROPERTY = "rumba.grid.minEmptyTilesPercent";
+    // tiled when at least that many percent of the tiles are all out of room; over 100 never tiles a room
+    private static final int MIN_EMPTY_PERCENT = Integer.getInteger(MIN_EMPTY_PERCENT_PROPERTY, 50);
+
+    // indexed by cell code
+    private static final byte[][] UNIFORM = {uniform(Room.NO_ROOM), uniform(Room.SPACE), uniform(Room.COLUMN)};
+    private static final char[][] SPACE_RAYS = new char[Robot.DIRECTION.length][];
+    private static final char[] NO_RAYS = new char[TILE * TILE];
+
+    static {
+        for (int direction = 0; direction < SPACE_RAYS.length; direction++) {
+            SPACE_RAYS[direction] = computeRays(UNIFORM[Room.SPACE], direction);
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final int tilesX;
+    private final byte[][] tiles;
+    private final int stored;
+    // per tile index * 4 + direction: free cells in front of each cell within the tile; computed lazily
+    private final AtomicReferenceArray<char[]> rays;
+
+    /**
+     * @param cells row-major cell codes; index = y * width + x
+     */
+    TiledGrid(int width, int height, byte[] cells) {
+        if (cells.length != width * height) {
+            throw new IllegalArgumentException(String.format("Expected %d x %d cells; got %d", width, height, cells.length));
+        }
+        this.width = width;
+        this.height = height;
+        this.tilesX = tiles(width);
+        this.tiles = new byte[tilesX * tiles(height)][];
+        int stored = 0;
+        for (int t = 0; t < tiles.length; t++) {
+            int code = uniformCode(width, height, cells, t);
+            if (code >= 0) {
+                tiles[t] = UNIFORM[code];
+                continue;
+            }
+            byte[] tile = new byte[TILE * TILE];      // cells out of the bounding box stay out of room
+            int x0 = (t % tilesX) << SHIFT;
+            int y0 = (t / tilesX) << SHIFT;
+            for (int y = y0; y < Math.min(y0 + TILE, height); y++) {
+                System.arraycopy(cells, y * width + x0, tile, (y - y0) << SHIFT, Math.min(TILE, width - x0));
+            }
+            tiles[t] = tile;
+            stored++;
+        }
+        this.stored = stored;
+        this.rays = new AtomicReferenceArray<>(tiles.length * Robot.DIRECTION.length);
+    }
+
+    private static int tiles(int cells) {
+        return (cells + MASK) >> SHIFT;
+    }
+
+    private static byte[] uniform(byte code) {
+        byte[] tile = new byte[TILE * TILE];
+        Arrays.fill(tile, code);
+        return tile;
+    }
+
+    /**
+     * @return code of all the cells of the given tile, counting the ones past the bounding box as out of room; -1 if
+     * the tile mixes codes.
+     */
+    private static int uniformCode(int width, int height, byte[] cells, int t) {
+        int tilesX = tiles(width);
+        int x0 = (t % tilesX) << SHIFT;
+        int y0 = (t / tilesX) << SHIFT;
+        int x1 = Math.min(x0 + TILE, width);
+        int y1 = Math.min(y0 + TILE, height);
+        int code = cells[y0 * width + x0];
+        if (code != Room.NO_ROOM && (x1 - x0 < TILE || y1 - y0 < TILE)) {
+            return -1;
+        }
+        for (int y = y0; y < y1; y++) {
+            for (int i = y * width + x0, end = y * width + x1; i < end; i++) {
+                if (cells[i] != code) {
+                    return -1;
+                }
+            }
+        }
+        return code;
+    }
+
+    /**
+     * Only the share of tiles all out of room counts: a dense room gains nothing from tiles, even if most of them are
+     * uniform (e.g. all space).
+     *
+     * @return true if at least {@value #MIN_EMPTY_PERCENT_PROPERTY} percent of the tiles would be all out of room.
+     */
+    static boolean isSparse(int width, int height, byte[] cells) {
+        int count = tiles(width) * tiles(height);
+        long needed = ((long) count * MIN_EMPTY_PERCENT + 99) / 100;
+        long empty = 0;
+        for (int t = 0; t < count && empty < needed && empty + count - t >= needed; t++) {
+            if (uniformCode(width, height, cells, t) == Room.NO_ROOM) {
+                empty++;
+            }
+        }
+        return count > 0 && empty >= needed;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public byte getCell(int index) {
+        return getCell(index % width, index / width);
+    }
+
+    @Override
+    public byte getCell(int x, int y) {
+        return tiles[(y >> SHIFT) * tilesX + (x >> SHIFT)][(y & MASK) << SHIFT | (x & MASK)];
+    }
+
+    /**
+     * @return number of tiles having cells of their own.
+     */
+    int getStoredTiles() {
+        return stored;
+    }
+
+    /**
+     * Same as {@link Room#freeCells(int, int)}, but summed tile by tile.
+     */
+    int freeCells(int x, int y, int direction) {
+        int dx = Robot.DX[direction];
+        int dy = Robot.DY[direction];
+        int ray = 0;
+        while (true) {
+            int r = tileRays(x, y, direction)[(y & MASK) << SHIFT | (x & MASK)];
+            ray += r;
+            x += dx * r;        // the last free cell in the tile
+            y += dy * r;
+            int nextX = x + dx;
+            int nextY = y + dy;
+            if (ray >= Room.MAX_RAY || (nextX | nextY | (width - 1 - nextX) | (height - 1 - nextY)) < 0
+                    || getCell(nextX, nextY) != Room.SPACE) {
+                return Math.min(ray, Room.MAX_RAY);
+            }
+            ray++;      // into the next tile
+            x = nextX;
+            y = nextY;
+        }
+    }
+
+    private char[] tileRays(int x, int y, int direction) {
+        int t = (y >> SHIFT) * tilesX + (x >> SHIFT);
+        byte[] tile = tiles[t];
+        if (tile == UNIFORM[Room.SPACE]) {
+            return SPACE_RAYS[direction];
+        }
+        if (tile == UNIFORM[Room.NO_ROOM] || tile == UNIFORM[Room.COLUMN]) {
+            return NO_RAYS;
+        }
+        int key = t * Robot.DIRECTION.length + direction;
+        char[] ray = rays.get(key);
+        if (ray == null) {
+            ray = computeRays(tile, direction);
+            rays.compareAndSet(key, null, ray);
+        }
+        return ray;
+    }
+
+    /**
+     * Sweeps the tile against the given direction so that each cell's ray is derived from its neighbour's one; the
+     * cells past the tile's edge count as obstacles.
+     */
+    private static char[] computeRays(byte[] tile, int direction) {
+        int dx = Robot.DX[direction];
+        int dy = Robot.DY[direction];
+        char[] ray = new char[TILE * TILE];
+        for (int j = 0; j < TILE; j++) {
+            int y = dy > 0 ? MASK - j : j;
+            for (int i = 0; i < TILE; i++) {
+                int x = dx > 0 ? MASK - i : i;
+                int nextX = x + dx;
+                int nextY = y + dy;
+                if ((nextX | nextY | (MASK - nextX) | (MASK - nextY)) >= 0 && tile[nextY << SHIFT | nextX] == Room.SPACE) {
+                    ray[y << SHIFT | x] = (char) (ray[nextY << SHIFT | nextX] + 1);
+                }
+            }
+        }
+        return ray;
+    }
+}
@@ -0,0 +1,196 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.data.Output;
+import com.myq.interview.cleaner.data.RobotPosition;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a trace written by {@link StepRecorder} record by record, through a large buffer.
+ */
+public class TraceReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private final int width;
+    private final int height;
+    private final int startX;
+    private final int startY;
+    private final int startFacing;
+    private final int startBattery;
+
+    // current record
+    private long index = -1;
+    private byte op;
+    private int flags;
+    private int facing;
+    private int x;
+    private int y;
+    private int battery;
+
+    public TraceReader(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        buffer.flip();
+        if (!fill(StepRecorder.HEADER_SIZE) || buffer.getInt() != StepRecorder.MAGIC) {
+            channel.close();
+            throw new IOException(String.format("Not a trace: %s", file));
+        }
+        int version = buffer.getInt();
+        if (version != StepRecorder.VERSION) {
+            channel.close();
+            throw new IOException(String.format("Unsupported version of trace: %d.", version));
+        }
+        width = buffer.getInt();
+        height = buffer.getInt();
+        startX = buffer.getInt();
+        startY = buffer.getInt();
+        startFacing = buffer.getInt();
+        startBattery = buffer.getInt();
+        x = startX;
+        y = startY;
+        facing = startFacing;
+        battery = startBattery;
+    }
+
+    /**
+     * @return false when there are not enough bytes left.
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes && channel.read(buffer) >= 0) {
+            // keep reading
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return false when there are no more records.
+     */
+    public boolean next() throws IOException {
+        if (!fill(StepRecorder.RECORD_SIZE)) {
+            return false;
+        }
+        index++;
+        op = buffer.get();
+        flags = buffer.get();
+        facing = buffer.get();
+        buffer.get();
+        x = buffer.getInt();
+        y = buffer.getInt();
+        battery = buffer.getInt();
+        return true;
+    }
+
+    /**
+     * Replays the rest of the trace.
+     *
+     * @return the output the robot returned when the trace was recorded.
+     */
+    public Output replay() throws IOException {
+        Coverage coverage = new Coverage(width, height);
+        if (index < 0) {
+            coverage.visit(startY * width + startX);
+        }
+        while (next()) {
+            if (isBlocked() || isLowBattery()) {
+                continue;
+            }
+            if (op == Robot.OP_ADVANCE || op == Robot.OP_BACK) {
+                coverage.visit(y * width + x);
+            } else if (op == Robot.OP_CLEAN) {
+                coverage.clean(y * width + x);
+            }
+        }
+        return new Output(coverage.getVisited(), coverage.getCleaned(), new RobotPosition(x, y, Robot.DIRECTION[facing]), battery);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getStartX() {
+        return startX;
+    }
+
+    public int getStartY() {
+        return startY;
+    }
+
+    public String getStartFacing() {
+        return Robot.DIRECTION[startFacing];
+    }
+
+    public int getStartBattery() {
+        return startBattery;
+    }
+
+    /**
+     * @return index of the current record; the first one is 0.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    public byte getOp() {
+        return op;
+    }
+
+    public String getCommand() {
+        return Robot.COMMAND_ARR[op];
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public boolean isBlocked() {
+        return (flags & StepRecorder.FLAG_BLOCKED) != 0;
+    }
+
+    public boolean isBackoff() {
+        return (flags & StepRecorder.FLAG_BACKOFF) != 0;
+    }
+
+    public boolean isLowBattery() {
+        return (flags & StepRecorder.FLAG_LOW_BATTERY) != 0;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public String getFacing() {
+        return Robot.DIRECTION[facing];
+    }
+
+    public int getBattery() {
+        return battery;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,111 @@
+package com.myq.interview.cleaner;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Renders a trace (see {@link StepRecorder}) as text, one line per step, optionally filtered; or rebuilds the output
+ * JSON from it.
+ */
+public class TraceTool {
+    private static final Logger log = LogManager.getLogger(TraceTool.class);
+
+    public static final String APP_NAME = "cleaning_robot_trace";
+    private static final String USAGE = "Usage: " + APP_NAME + " [--from N] [--to N] [--command C] [--flagged] <trace.bin>\n"
+            + "   or: " + APP_NAME + " --output <result.json> <trace.bin>";
+
+    private long from = 0;
+    private long to = Long.MAX_VALUE;       // exclusive
+    private byte op = Robot.OP_UNKNOWN;     // any command
+    private boolean flagged;                // blocked, back off or low battery steps only
+    private File outputFile;
+    private File traceFile;
+
+    public static void main(String[] args) {
+        TraceTool tool = new TraceTool();
+        try {
+            tool.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            log.error(String.format("%s\n%s", USAGE, e.getMessage()));
+            System.exit(Main.ERR_INVALID_PARAMETERS);
+        }
+        try (TraceReader reader = new TraceReader(tool.traceFile)) {
+            if (tool.outputFile != null) {
+                StreamingOutputWriter.write(reader.replay(), tool.outputFile);
+            } else {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+                tool.render(reader, writer);
+                writer.flush();
+            }
+        } catch (IOException e) {
+            log.error(String.format("Can't read the trace from %s.", tool.traceFile.getAbsolutePath()), e);
+            System.exit(Main.ERR_INVALID_INPUT);
+        }
+    }
+
+    void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--from":
+                    from = Long.parseLong(value(args, ++i, arg));
+                    break;
+                case "--to":
+                    to = Long.parseLong(value(args, ++i, arg));
+                    break;
+                case "--command":
+                    String command = value(args, ++i, arg);
+                    op = Robot.compile(command);
+                    if (op == Robot.OP_UNKNOWN) {
+                        throw new IllegalArgumentException(String.format("Unknown command: %s", command));
+                    }
+                    break;
+                case "--flagged":
+                    flagged = true;
+                    break;
+                case "--output":
+                    outputFile = new File(value(args, ++i, arg));
+                    break;
+                default:
+                    if (arg.startsWith("--") || traceFile != null) {
+                        throw new IllegalArgumentException(String.format("Unexpected parameter: %s", arg));
+                    }
+                    traceFile = new File(arg);
+            }
+        }
+        if (traceFile == null) {
+            throw new IllegalArgumentException("Provide the trace file!");
+        }
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(String.format("Missing value of %s", option));
+        }
+        return args[i];
+    }
+
+    void render(TraceReader reader, Writer writer) throws IOException {
+        writer.write(String.format("Room %d x %d; start at %d, %d; facing %s; battery: %d%n", reader.getWidth(), reader.getHeight(),
+                reader.getStartX(), reader.getStartY(), reader.getStartFacing(), reader.getStartBattery()));
+        while (reader.next() && reader.getIndex() < to) {
+            if (reader.getIndex() < from
+                    || (op != Robot.OP_UNKNOWN && reader.getOp() != op)
+                    || (flagged && reader.getFlags() == 0)) {
+                continue;
+            }
+            writer.write(String.format("#%d %s; Robot at %d, %d; facing %s; battery: %d%s%s%s%n", reader.getIndex(), reader.getCommand(),
+                    reader.getX(), reader.getY(), reader.getFacing(), reader.getBattery(),
+                    reader.isBackoff() ? "; back off" : "",
+                    reader.isBlocked() ? "; blocked" : "",
+                    reader.isLowBattery() ? "; low battery" : ""));
+        }
+    }
+}
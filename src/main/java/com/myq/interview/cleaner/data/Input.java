@@ -1,6 +1,7 @@
 // generated by http://www.jsonschema2pojo.org/
 package com.myq.interview.cleaner.data;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
@@ -22,6 +23,8 @@ public class Input {
     private String[] commands = null;
     @JsonProperty("battery")
     private Integer battery;
+    @JsonIgnore
+    private byte[] program = null;
 
     /**
      * No args constructor for use in serialization
@@ -85,4 +88,17 @@ public class Input {
         this.battery = battery;
     }
 
+    /**
+     * @return commands compiled to opcodes (see Robot.OP_*); null until the input is validated.
+     */
+    @JsonIgnore
+    public byte[] getProgram() {
+        return program;
+    }
+
+    @JsonIgnore
+    public void setProgram(byte[] program) {
+        this.program = program;
+    }
+
 }
\ No newline at end of file
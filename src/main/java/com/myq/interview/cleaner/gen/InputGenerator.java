@@ -0,0 +1,278 @@
+package com.myq.interview.cleaner.gen;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.myq.interview.cleaner.Main;
+import com.myq.interview.cleaner.Robot;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.SplittableRandom;
+
+/**
+ * Generates valid input documents of any size. The document is written as it is generated, row by row and command by
+ * command, so nothing but a single row is ever held in memory.
+ * <p>
+ * The same settings (including the seed) always produce the very same bytes. The map and the commands are drawn from
+ * independent random streams, so e.g. changing the number of commands does not change the map.
+ */
+public class InputGenerator {
+    private static final Logger log = LogManager.getLogger(InputGenerator.class);
+
+    public static final String APP_NAME = "cleaning_robot_gen";
+    private static final String USAGE = "Usage: " + APP_NAME + " [--seed N] [--size WIDTH HEIGHT] [--densities NULL COLUMN]"
+            + " [--start X Y FACING] [--commands N] [--weights C TR TL A B] [--max-run N] [--battery N] <result.json>";
+
+    private static final JsonFactory factory = new JsonFactory();
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private long seed = 1;
+    private int width = 10;
+    private int height = 10;
+    private double nullDensity = 0.0;
+    private double columnDensity = 0.1;
+    private Integer startX;                 // null for a random start
+    private Integer startY;
+    private String facing;                  // null for a random facing
+    private long commands = 100;
+    private int maxRun = 1;                 // moves are repeated 1..maxRun times
+    private final double[] weights = {2, 1, 1, 5, 1};   // indexed by opcode
+    private Integer battery;                   // null for "enough for all the commands"
+
+    public static void main(String[] args) {
+        InputGenerator generator = new InputGenerator();
+        File file = null;
+        try {
+            file = generator.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            log.error(String.format("%s\n%s", USAGE, e.getMessage()));
+            System.exit(Main.ERR_INVALID_PARAMETERS);
+        }
+        long started = System.nanoTime();
+        try {
+            generator.write(file);
+        } catch (IOException e) {
+            log.error(String.format("Can't write the input JSON to %s.", file.getAbsolutePath()), e);
+            System.exit(Main.ERR_INVALID_OUTPUT);
+        }
+        log.info(String.format("Generated %s (%d bytes) in %.3f s", file.getAbsolutePath(), file.length(), (System.nanoTime() - started) / 1e9));
+    }
+
+    /**
+     * Applies the options to this generator.
+     *
+     * @return the file to write to.
+     */
+    File parseArguments(String[] args) {
+        File file = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--seed":
+                    seed(Long.parseLong(value(args, ++i, arg)));
+                    break;
+                case "--size":
+                    size(Integer.parseInt(value(args, ++i, arg)), Integer.parseInt(value(args, ++i, arg)));
+                    break;
+                case "--densities":
+                    densities(Double.parseDouble(value(args, ++i, arg)), Double.parseDouble(value(args, ++i, arg)));
+                    break;
+                case "--start":
+                    start(Integer.parseInt(value(args, ++i, arg)), Integer.parseInt(value(args, ++i, arg)), value(args, ++i, arg));
+                    break;
+                case "--commands":
+                    commands(Long.parseLong(value(args, ++i, arg)));
+                    break;
+                case "--weights":
+                    double[] weights = new double[this.weights.length];
+                    for (int j = 0; j < weights.length; j++) {
+                        weights[j] = Double.parseDouble(value(args, ++i, arg));
+                    }
+                    weights(weights);
+                    break;
+                case "--max-run":
+                    maxRun(Integer.parseInt(value(args, ++i, arg)));
+                    break;
+                case "--battery":
+                    battery(Integer.parseInt(value(args, ++i, arg)));
+                    break;
+                default:
+                    if (arg.startsWith("--") || file != null) {
+                        throw new IllegalArgumentException(String.format("Unexpected parameter: %s", arg));
+                    }
+                    file = new File(arg);
+            }
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("Provide the result file!");
+        }
+        return file;
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(String.format("Missing value of %s", option));
+        }
+        return args[i];
+    }
+
+    public InputGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public InputGenerator size(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException(String.format("The room must have at least 1 cell; given %d x %d", width, height));
+        }
+        this.width = width;
+        this.height = height;
+        return this;
+    }
+
+    /**
+     * @param nullDensity   share of cells with no room (null)
+     * @param columnDensity share of cells with a column ('C')
+     */
+    public InputGenerator densities(double nullDensity, double columnDensity) {
+        if (nullDensity < 0 || columnDensity < 0 || nullDensity + columnDensity > 1) {
+            throw new IllegalArgumentException(String.format("Invalid densities: %s null, %s columns", nullDensity, columnDensity));
+        }
+        this.nullDensity = nullDensity;
+        this.columnDensity = columnDensity;
+        return this;
+    }
+
+    /**
+     * The start cell is always made a space ('S'), whatever the densities say.
+     */
+    public InputGenerator start(int x, int y, String facing) {
+        if (facing != null && !Robot.DIRECTION_MAP.containsKey(facing)) {
+            throw new IllegalArgumentException(String.format("Unknown facing: %s", facing));
+        }
+        this.startX = x;
+        this.startY = y;
+        this.facing = facing;
+        return this;
+    }
+
+    public InputGenerator commands(long commands) {
+        this.commands = commands;
+        return this;
+    }
+
+    /**
+     * @param weights relative frequencies of C, TR, TL, A and B (in the order of Robot.COMMAND_ARR)
+     */
+    public InputGenerator weights(double... weights) {
+        if (weights.length != this.weights.length) {
+            throw new IllegalArgumentException(String.format("Expected %d weights; given %d", this.weights.length, weights.length));
+        }
+        System.arraycopy(weights, 0, this.weights, 0, weights.length);
+        return this;
+    }
+
+    /**
+     * @param maxRun each A or B is repeated a random number of times between 1 and maxRun
+     */
+    public InputGenerator maxRun(int maxRun) {
+        this.maxRun = Math.max(1, maxRun);
+        return this;
+    }
+
+    public InputGenerator battery(int battery) {
+        this.battery = battery;
+        return this;
+    }
+
+    public void write(File file) throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file.toPath()), BUFFER_SIZE)) {
+            write(outputStream);
+        }
+    }
+
+    /**
+     * Writes the document to the given stream; the stream is flushed, but left open.
+     */
+    public void write(OutputStream outputStream) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        SplittableRandom mapRandom = random.split();
+        SplittableRandom commandRandom = random.split();
+        if (startX != null && (startX >= width || startY >= height || startX < 0 || startY < 0)) {
+            throw new IllegalArgumentException(String.format("Start %d, %d is out of the %d x %d room", startX, startY, width, height));
+        }
+        int x0 = startX != null ? startX : random.nextInt(width);
+        int y0 = startY != null ? startY : random.nextInt(height);
+        String facing0 = facing != null ? facing : Robot.DIRECTION[random.nextInt(Robot.DIRECTION.length)];
+
+        try (JsonGenerator generator = factory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+
+            generator.writeArrayFieldStart("map");
+            for (int y = 0; y < height; y++) {
+                generator.writeStartArray();
+                for (int x = 0; x < width; x++) {
+                    double r = mapRandom.nextDouble();      // drawn for the start too to keep the rest of the map stable
+                    if (x == x0 && y == y0) {
+                        generator.writeString("S");
+                    } else if (r < nullDensity) {
+                        generator.writeNull();
+                    } else if (r < nullDensity + columnDensity) {
+                        generator.writeString("C");
+                    } else {
+                        generator.writeString("S");
+                    }
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndArray();
+
+            generator.writeObjectFieldStart("start");
+            generator.writeNumberField("X", x0);
+            generator.writeNumberField("Y", y0);
+            generator.writeStringField("facing", facing0);
+            generator.writeEndObject();
+
+            long consumption = writeCommands(generator, commandRandom);
+
+            generator.writeNumberField("battery", battery != null ? battery : (int) Math.min(Integer.MAX_VALUE, consumption));
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * @return battery needed for all the commands, when nothing gets in the robot's way.
+     */
+    private long writeCommands(JsonGenerator generator, SplittableRandom random) throws IOException {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        long consumption = 0;
+        generator.writeArrayFieldStart("commands");
+        for (long i = 0; i < commands; ) {
+            double r = random.nextDouble() * total;
+            int op = 0;
+            while (op < weights.length - 1 && r >= weights[op]) {
+                r -= weights[op++];
+            }
+            long repeat = op == Robot.OP_ADVANCE || op == Robot.OP_BACK ? 1 + random.nextInt(maxRun) : 1;
+            for (long j = 0; j < repeat && i < commands; j++, i++) {
+                generator.writeString(Robot.COMMAND_ARR[op]);
+                consumption += CONSUMPTION[op];
+            }
+        }
+        generator.writeEndArray();
+        return consumption;
+    }
+
+    // indexed by opcode
+    private static final int[] CONSUMPTION = {Robot.CLEAN_CONSUMPTION, Robot.TURN_CONSUMPTION, Robot.TURN_CONSUMPTION, Robot.GO_ADVANCE_CONSUMPTION, Robot.GO_BACK_CONSUMPTION};
+}
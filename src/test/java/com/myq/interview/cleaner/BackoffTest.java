@@ -0,0 +1,76 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.gen.InputGenerator;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+@ExtendWith(QuietLogging.class)     // robots run through thousands of commands
+public class BackoffTest {
+
+    @TempDir
+    static File tempFolder;
+
+    private static Mission generate(long seed, int battery) throws IOException {
+        ByteArrayOutputStream generated = new ByteArrayOutputStream();
+        new InputGenerator().seed(seed).size(60, 60).densities(0.1, 0.35).commands(3000).battery(battery).write(generated);
+        return StreamingInputReader.read(new ByteArrayInputStream(generated.toByteArray()));
+    }
+
+    /**
+     * A traced robot runs every back off strategy command by command; the memoized outcomes must give the very same
+     * result and counters, also when the battery runs out halfway through the strategies.
+     */
+    @Test
+    void testSameAsStepByStep() throws IOException {
+        for (long seed = 0; seed < 10; seed++) {
+            for (int battery : new int[]{100, 517, 2000, 100000}) {
+                Mission mission = generate(seed, battery);
+                String name = "seed " + seed + ", battery " + battery;
+                TracedRun.assertSameAsTraced(name, mission, new File(tempFolder, "backoff.trace"));
+            }
+        }
+    }
+
+    @Test
+    void testShared() throws IOException {
+        Mission mission = generate(3, 100000);
+        Room room = mission.getRoom();
+        int index = 0;
+        while (room.getCell(index) != Room.SPACE) {
+            index++;
+        }
+        int x = index % room.getWidth();
+        int y = index / room.getWidth();
+        char backoff = room.getBackoff(x, y, 0);
+        Assert.assertNotEquals(Backoff.UNKNOWN, backoff);
+        Assert.assertEquals(backoff, room.getBackoff(x, y, 0));
+        Assert.assertEquals(Backoff.compute(room, x, y, 0), backoff);
+        Assert.assertTrue(Backoff.cost(backoff) > 0);
+    }
+
+    @Test
+    void testNoneWorks() throws IOException {
+        Room room = StreamingInputReader.read(TestResources.getFile("json/inputs/single_cell_room.json")).getRoom();
+        char backoff = room.getBackoff(0, 0, 0);
+        Assert.assertEquals(-1, Backoff.strategy(backoff));
+        Assert.assertEquals(Robot.BACKOFF_PROGRAMS.length, Backoff.strategies(backoff));
+        int cost = 0;
+        for (int i = 0; i < Robot.BACKOFF_PROGRAMS.length; i++) {
+            for (byte op : Robot.BACKOFF_PROGRAMS[i]) {
+                cost += Robot.CONSUMPTION[op];
+                if (op == Robot.OP_ADVANCE || op == Robot.OP_BACK) {
+                    break;      // every move is blocked
+                }
+            }
+            Assert.assertEquals(0, Backoff.moves(backoff, i));
+        }
+        Assert.assertEquals(cost, Backoff.cost(backoff));
+    }
+}
@@ -0,0 +1,61 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class BatchRunnerTest {
+
+    @TempDir
+    File tempFolder;
+
+    private void assertSameOutputs(File resultsFolder, String... names) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        File outputsFolder = TestResources.getFile("json/outputs");
+        for (String name : names) {
+            Assert.assertEquals(name, mapper.readTree(new File(outputsFolder, name)), mapper.readTree(new File(resultsFolder, name)));
+        }
+    }
+
+    @Test
+    void testFolder() throws Exception {
+        File inputsFolder = TestResources.getFile("json/inputs");
+        Assert.assertEquals(0, new BatchRunner(inputsFolder, tempFolder, 2).run());
+
+        String[] results = tempFolder.list();
+        Assert.assertEquals(inputsFolder.list().length, results.length);
+        assertSameOutputs(tempFolder, results);
+    }
+
+    @Test
+    void testManifest() throws Exception {
+        File manifest = new File(tempFolder, "jobs.jsonl");
+        String inputs = TestResources.getFile("json/inputs").getAbsolutePath().replace('\\', '/');
+        Files.write(manifest.toPath(), Arrays.asList(
+                String.format("{\"input\": \"%s/test1.json\"}", inputs),
+                "",
+                String.format("{\"input\": \"%s/test2.json\", \"output\": \"result_test2.json\"}", inputs),
+                String.format("{\"input\": \"%s/non-existing.json\"}", inputs),
+                "{\"output\": \"no-input.json\"}"
+        ), StandardCharsets.UTF_8);
+        File resultsFolder = new File(tempFolder, "results");
+        Assert.assertTrue(resultsFolder.mkdir());
+
+        Assert.assertEquals(Main.ERR_INVALID_INPUT, new BatchRunner(manifest, resultsFolder, 2).run());
+        assertSameOutputs(resultsFolder, "result_test1.json", "result_test2.json");
+        Assert.assertEquals(2, resultsFolder.list().length);
+    }
+
+    @Test
+    void testInvalidInputsDoNotStopTheBatch() throws Exception {
+        Assert.assertEquals(Main.ERR_INVALID_INPUT, new BatchRunner(TestResources.getFile("json/invalid_inputs"), tempFolder, 2).run());
+        Assert.assertEquals(0, tempFolder.list().length);
+    }
+}
@@ -0,0 +1,75 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myq.interview.cleaner.data.Output;
+import com.myq.interview.cleaner.data.RobotPosition;
+import org.junit.Assert;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class BitmapOutputTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static BitmapOutputReader roundTrip(Output output, boolean rle) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BitmapOutputWriter.write(output, bytes, rle);
+        return BitmapOutputReader.read(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @TestFactory
+    @DisplayName("Bitmap output test")
+    Collection<DynamicTest> testSameOutputAsJson() {
+        File inputsFolder = TestResources.getFile("json/inputs");
+        File[] inputs = inputsFolder.listFiles((dir, name) -> name.endsWith(".json") && !name.startsWith("x")); //skip tests starting with x
+
+        List<DynamicTest> tests = new ArrayList<>(2 * inputs.length);
+        for (File input : inputs) {
+            for (boolean rle : new boolean[]{false, true}) {
+                tests.add(dynamicTest(input.getName() + (rle ? " (rle)" : ""), () -> {
+                    Output output = new Robot(StreamingInputReader.read(input)).work();
+                    Output actual = roundTrip(output, rle).toOutput();
+                    Assert.assertEquals(mapper.writeValueAsString(output), mapper.writeValueAsString(actual));
+                }));
+            }
+        }
+        return tests;
+    }
+
+    @Test
+    void testLongRuns() throws IOException {
+        int width = 1000;
+        int height = 300;
+        Coverage coverage = new Coverage(width, height);
+        coverage.visit(5, 1, 150_000);
+        coverage.visit(width * height - 1);
+        coverage.clean(0);
+        Output output = new Output(coverage.getVisited(), coverage.getCleaned(), new RobotPosition(0, 0, "N"), 7);
+        for (boolean rle : new boolean[]{false, true}) {
+            BitmapOutputReader reader = roundTrip(output, rle);
+            Assert.assertEquals(width, reader.getWidth());
+            Assert.assertEquals(height, reader.getHeight());
+            Assert.assertFalse(reader.isVisited(4, 0));
+            Assert.assertTrue(reader.isVisited(5, 0));
+            Assert.assertTrue(reader.isVisited(4, 150));
+            Assert.assertFalse(reader.isVisited(5, 150));
+            Assert.assertTrue(reader.isVisited(width - 1, height - 1));
+            Assert.assertTrue(reader.isCleaned(0, 0));
+            Assert.assertFalse(reader.isCleaned(1, 0));
+            Assert.assertEquals("N", reader.getFacing());
+            Assert.assertEquals(7, reader.getBattery());
+        }
+    }
+}
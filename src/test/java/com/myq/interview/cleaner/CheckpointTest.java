@@ -0,0 +1,80 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myq.interview.cleaner.data.Output;
+import org.junit.Assert;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class CheckpointTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    static File tempFolder;
+
+    private static Mission firstCommands(Mission mission, int count) {
+        return new Mission(mission.getRoom(), mission.getStart(), Arrays.copyOf(mission.getProgram(), count), mission.getBattery());
+    }
+
+    @TestFactory
+    @DisplayName("Resume test")
+    Collection<DynamicTest> testResume() {
+        File inputsFolder = TestResources.getFile("json/inputs");
+        File[] inputs = inputsFolder.listFiles((dir, name) -> name.endsWith(".json") && !name.startsWith("x")); //skip tests starting with x
+
+        List<DynamicTest> tests = new ArrayList<>(inputs.length);
+        for (File input : inputs) {
+            tests.add(dynamicTest(input.getName(), () -> {
+                Mission mission = StreamingInputReader.read(input);
+                String expected = mapper.writeValueAsString(new Robot(mission).work());
+                File checkpointFile = new File(tempFolder, input.getName() + ".checkpoint");
+
+                // run the first half, then append the rest
+                Robot first = new Robot(firstCommands(mission, mission.getProgram().length / 2));
+                first.setCheckpoints(checkpointFile, 3);
+                first.work();
+                Output resumed = new Robot(mission, new JobMetrics(), Checkpoint.read(checkpointFile)).work();
+                Assert.assertEquals(expected, mapper.writeValueAsString(resumed));
+
+                // a finished run has nothing more to do
+                Robot all = new Robot(mission);
+                all.setCheckpoints(checkpointFile, 1);
+                Assert.assertEquals(expected, mapper.writeValueAsString(all.work()));
+                Checkpoint last = Checkpoint.read(checkpointFile);
+                Assert.assertEquals(expected, mapper.writeValueAsString(new Robot(mission, new JobMetrics(), last).work()));
+            }));
+        }
+        return tests;
+    }
+
+    @Test
+    void testOtherCommands() throws IOException {
+        Mission mission = StreamingInputReader.read(TestResources.getFile("json/inputs/test1.json"));
+        File checkpointFile = new File(tempFolder, "other.checkpoint");
+        Robot robot = new Robot(mission);
+        robot.setCheckpoints(checkpointFile, 1);
+        robot.work();
+        Checkpoint checkpoint = Checkpoint.read(checkpointFile);
+        Assert.assertTrue(checkpoint.getNext() > 0);
+
+        byte[] program = mission.getProgram().clone();
+        program[0] = program[0] == Robot.OP_CLEAN ? Robot.OP_TURN_R : Robot.OP_CLEAN;
+        Mission other = new Mission(mission.getRoom(), mission.getStart(), program, mission.getBattery());
+        Assert.assertThrows(IllegalArgumentException.class, () -> new Robot(other, new JobMetrics(), checkpoint));
+        Mission shorter = firstCommands(mission, checkpoint.getNext() - 1);
+        Assert.assertThrows(IllegalArgumentException.class, () -> new Robot(shorter, new JobMetrics(), checkpoint));
+    }
+}
@@ -0,0 +1,106 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myq.interview.cleaner.data.Output;
+import org.junit.Assert;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class CommandStreamTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static Mission withoutCommands(Mission mission) {
+        return new Mission(mission.getRoom(), mission.getStart(), new byte[0], mission.getBattery());
+    }
+
+    private static String toLines(byte[] program) {
+        StringBuilder lines = new StringBuilder();
+        for (byte op : program) {
+            lines.append(Robot.COMMAND_ARR[op]).append('\n');
+        }
+        return lines.toString();
+    }
+
+    @TestFactory
+    @DisplayName("Streamed commands test")
+    Collection<DynamicTest> testStream() {
+        File inputsFolder = TestResources.getFile("json/inputs");
+        File[] inputs = inputsFolder.listFiles((dir, name) -> name.endsWith(".json") && !name.startsWith("x")); //skip tests starting with x
+
+        List<DynamicTest> tests = new ArrayList<>(inputs.length);
+        for (File input : inputs) {
+            tests.add(dynamicTest(input.getName(), () -> {
+                Mission mission = StreamingInputReader.read(input);
+                Output expected = new Robot(mission).work();
+
+                ByteArrayOutputStream deltas = new ByteArrayOutputStream();
+                Output output = new CommandStream(withoutCommands(mission), deltas)
+                        .run(new BufferedReader(new StringReader(toLines(mission.getProgram()))));
+                Assert.assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(output));
+
+                // the changes add up to the output
+                TreeSet<String> visited = new TreeSet<>();
+                TreeSet<String> cleaned = new TreeSet<>();
+                JsonNode last = null;
+                for (String line : deltas.toString(StandardCharsets.UTF_8.name()).split("\n")) {
+                    last = mapper.readTree(line);
+                    last.path("visited").forEach(cell -> Assert.assertTrue(cell.toString(), visited.add(cell.toString())));
+                    last.path("cleaned").forEach(cell -> Assert.assertTrue(cell.toString(), cleaned.add(cell.toString())));
+                }
+                JsonNode result = mapper.readTree(mapper.writeValueAsString(expected));
+                Assert.assertEquals(result.get("visited").size(), visited.size());
+                Assert.assertEquals(result.get("cleaned").size(), cleaned.size());
+                Assert.assertEquals(result.get("final"), last.get("final"));
+                Assert.assertEquals(result.get("battery"), last.get("battery"));
+            }));
+        }
+        return tests;
+    }
+
+    @Test
+    void testUnknownCommand() throws IOException {
+        Mission mission = withoutCommands(StreamingInputReader.read(TestResources.getFile("json/inputs/test1.json")));
+        ByteArrayOutputStream deltas = new ByteArrayOutputStream();
+        new CommandStream(mission, deltas).run(new BufferedReader(new StringReader("TR\n\nX\n TL \n")));
+        String[] lines = deltas.toString(StandardCharsets.UTF_8.name()).split("\n");
+        Assert.assertEquals(4, lines.length);
+        Assert.assertTrue(lines[2], lines[2].startsWith("{\"command\""));
+        Assert.assertEquals("TR", mapper.readTree(lines[1]).get("command").asText());
+        Assert.assertEquals("Unknown command: 'X'.", mapper.readTree(lines[2]).get("error").asText());
+        Assert.assertEquals("TL", mapper.readTree(lines[3]).get("command").asText());
+        Assert.assertFalse(mapper.readTree(lines[3]).has("visited"));
+        Assert.assertFalse(mapper.readTree(lines[0]).has("halted"));
+    }
+
+    @Test
+    void testHaltedBySource() throws IOException {
+        Mission source = StreamingInputReader.read(TestResources.getFile("json/inputs/test1.json"));
+        byte[] program = {Robot.OP_ADVANCE, Robot.OP_ADVANCE, Robot.OP_ADVANCE};
+        Mission mission = new Mission(source.getRoom(), source.getStart(), program, 3);     // out of energy on the 2nd
+        ByteArrayOutputStream deltas = new ByteArrayOutputStream();
+        Output output = new CommandStream(mission, deltas).run(new BufferedReader(new StringReader("TR\nTL\n")));
+        String[] lines = deltas.toString(StandardCharsets.UTF_8.name()).split("\n");
+        Assert.assertEquals(1, lines.length);       // the streamed commands are not run
+        JsonNode state = mapper.readTree(lines[0]);
+        Assert.assertTrue(state.get("halted").asBoolean());
+        Assert.assertEquals(output.getBattery(), state.get("battery").asInt());
+        Assert.assertEquals(mapper.readTree(mapper.writeValueAsString(output)).get("visited"), state.get("visited"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myq.interview.cleaner.data.Output;
+import com.myq.interview.cleaner.data.Position;
+import com.myq.interview.cleaner.data.RobotPosition;
+import com.myq.interview.cleaner.gen.InputGenerator;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+@ExtendWith(QuietLogging.class)     // robots run through thousands of commands
+public class FleetTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    static File tempFolder;
+
+    @Test
+    void testSingleRobot() throws IOException, InterruptedException {
+        Mission mission = StreamingInputReader.read(TestResources.getFile("json/inputs/test2.json"));
+        Output expected = new Robot(mission).work();
+        List<Output> outputs = new Fleet(Arrays.asList(mission)).run(4);
+        Assert.assertEquals(1, outputs.size());
+        Assert.assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(outputs.get(0)));
+    }
+
+    /**
+     * Many robots on a generated room; the merged coverage must be the union of the robots run one by one.
+     */
+    @Test
+    void testMergedCoverage() throws IOException, InterruptedException {
+        ByteArrayOutputStream generated = new ByteArrayOutputStream();
+        new InputGenerator().seed(11).size(300, 200).densities(0.05, 0.1).commands(40000).write(generated);
+        Mission base = StreamingInputReader.read(new ByteArrayInputStream(generated.toByteArray()));
+        Room room = base.getRoom();
+        byte[] program = base.getProgram();
+
+        List<Mission> missions = new ArrayList<>();
+        int robots = 8;
+        for (int i = 0, cell = 0; i < robots; i++, cell += room.getWidth() * room.getHeight() / robots) {
+            while (room.getCell(cell) != Room.SPACE) {
+                cell++;
+            }
+            RobotPosition start = new RobotPosition(cell % room.getWidth(), cell / room.getWidth(), Robot.DIRECTION[i % 4]);
+            byte[] commands = Arrays.copyOfRange(program, i * 5000, program.length);
+            missions.add(new Mission(room, start, commands, base.getBattery()));
+        }
+
+        TreeSet<Position> visited = new TreeSet<>();
+        TreeSet<Position> cleaned = new TreeSet<>();
+        List<String> finals = new ArrayList<>();
+        for (Mission mission : missions) {
+            Output output = new Robot(mission).work();
+            visited.addAll(output.getVisited());
+            cleaned.addAll(output.getCleaned());
+            finals.add(mapper.writeValueAsString(output.getFinal()) + output.getBattery());
+        }
+
+        Fleet fleet = new Fleet(missions);
+        List<Output> outputs = fleet.run(4);
+        for (int i = 0; i < robots; i++) {
+            Assert.assertEquals(finals.get(i), mapper.writeValueAsString(outputs.get(i).getFinal()) + outputs.get(i).getBattery());
+        }
+        Assert.assertSame(outputs.get(0).getVisited(), outputs.get(robots - 1).getVisited());    // one snapshot for all
+        Assert.assertEquals(new ArrayList<>(visited), new ArrayList<>(outputs.get(0).getVisited()));
+        Assert.assertEquals(new ArrayList<>(visited), new ArrayList<>(fleet.getCoverage().getVisited()));
+        Assert.assertEquals(new ArrayList<>(cleaned), new ArrayList<>(fleet.getCoverage().getCleaned()));
+
+        File result = new File(tempFolder, "fleet.json");
+        fleet.write(outputs, result);
+        JsonNode json = mapper.readTree(result);
+        Assert.assertEquals(visited.size(), json.get("visited").size());
+        Assert.assertEquals(cleaned.size(), json.get("cleaned").size());
+        Assert.assertEquals(robots, json.get("robots").size());
+    }
+
+    @Test
+    void testOtherRoom() throws IOException {
+        Mission first = StreamingInputReader.read(TestResources.getFile("json/inputs/test1.json"));
+        Mission second = StreamingInputReader.read(TestResources.getFile("json/inputs/single_cell_room.json"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> new Fleet(Arrays.asList(first, second)));
+    }
+}
@@ -0,0 +1,65 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.exc.InvalidInputException;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class MapValidatorTest {
+
+    private static Character[][] map(int width, int height) {
+        Character[][] map = new Character[height][width];
+        for (Character[] row : map) {
+            Arrays.fill(row, Room.SPACE_CHAR);
+        }
+        return map;
+    }
+
+    @Test
+    void testFirstProblemWins() {
+        Character[][] map = map(1000, 1000);     // large enough to be split
+        Assert.assertNull(MapValidator.validate(map));
+        map[900][5] = 'X';
+        map[700] = Arrays.copyOf(map[700], 999);
+        map[600][999] = 'Q';
+        Assert.assertEquals(String.format(InputOutputParser.MSG_INVALID_MAP_CHAR, 'Q'), MapValidator.validate(map));
+        map[600][999] = null;
+        Assert.assertEquals(String.format(InputOutputParser.MSG_RAGGED_MAP, 700, 999, 1000), MapValidator.validate(map));
+        map[3] = null;
+        Assert.assertEquals(InputOutputParser.MSG_INVALID_MAP, MapValidator.validate(map));
+    }
+
+    @Test
+    void testFirstInvalidPackedCell() {
+        int cells = 5_000_000 + 7;
+        ByteBuffer packed = ByteBuffer.allocate((int) PackedGrid.bytes(cells, 1));
+        Assert.assertEquals(-1, MapValidator.firstInvalidCell(packed, cells));
+        packed.put(packed.capacity() - 1, (byte) 0xc0);    // past the last cell; ignored
+        Assert.assertEquals(-1, MapValidator.firstInvalidCell(packed, cells));
+        packed.put(packed.capacity() - 1, (byte) 0x30);    // the last cell
+        Assert.assertEquals(cells - 1, MapValidator.firstInvalidCell(packed, cells));
+        packed.put(1_000_000, (byte) 0x0c);                // cell 4_000_001
+        packed.put(1_200_000, (byte) 0x03);
+        Assert.assertEquals(4_000_001, MapValidator.firstInvalidCell(packed, cells));
+    }
+
+    @Test
+    void testInvalidBinaryMap() throws IOException {
+        File roomFile = File.createTempFile("room-", ".bin");
+        try {
+            RoomFile.write(new Room(3, 2, new byte[]{Room.SPACE, Room.SPACE, Room.SPACE, Room.SPACE, Room.SPACE, Room.SPACE}), roomFile);
+            byte[] bytes = Files.readAllBytes(roomFile.toPath());
+            bytes[RoomFile.HEADER_SIZE + 1] |= 0x03;            // cell 4
+            Files.write(roomFile.toPath(), bytes);
+            InvalidInputException e = Assert.assertThrows(InvalidInputException.class, () -> RoomFile.open(roomFile));
+            Assert.assertEquals("Invalid cell code in the binary room map at 1, 1.", e.getMessage());
+        } finally {
+            roomFile.delete();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myq.interview.cleaner.data.Output;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+public class MetricsTest {
+
+    @TempDir
+    static File tempFolder;
+
+    @Test
+    void testJobMetrics() throws Exception {
+        File outputFile = new File(tempFolder, "result_test2.json");
+        InputOutputParser parser = new InputOutputParser(TestResources.getFile("json/inputs/test2.json"), outputFile, null, InputOutputParser.OutputFormat.JSON, true, null, null, null);
+        Mission mission = parser.readInput();
+        Robot robot = new Robot(mission, parser.getMetrics());
+        Output output = robot.work();
+        parser.writeOutput(output);
+
+        JobMetrics metrics = parser.getMetrics();
+        long commands = 0;
+        long spent = 0;
+        for (byte op = 0; op < Robot.COMMAND_ARR.length; op++) {
+            commands += metrics.getCommands(op);
+            spent += metrics.getBatterySpent(op);
+        }
+        Assert.assertEquals(mission.getBattery() - output.getBattery(), spent);
+        Assert.assertTrue(metrics.getBackoffTriggers() > 0);    // test2 bumps into the wall
+        Assert.assertTrue(metrics.getBlockedMoves() >= metrics.getBackoffTriggers());
+        Assert.assertTrue(commands >= mission.getProgram().length - metrics.getStuck());
+        for (int phase = 0; phase < JobMetrics.PHASES.length; phase++) {
+            Assert.assertTrue(JobMetrics.PHASES[phase], metrics.getPhaseNanos(phase) > 0);
+        }
+
+        JsonNode sidecar = new ObjectMapper().readTree(JobMetrics.sidecarFor(outputFile));
+        Assert.assertEquals(metrics.getCommands(Robot.OP_CLEAN), sidecar.path("commands").path("C").asLong());
+        Assert.assertEquals(metrics.getBackoffTriggers(), sidecar.path("backoff").path("triggered").asLong());
+    }
+
+    @Test
+    void testJmx() throws Exception {
+        new Robot(StreamingInputReader.read(TestResources.getFile("json/inputs/test1.json"))).work();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Long jobs = (Long) server.getAttribute(new ObjectName(Metrics.OBJECT_NAME), "Jobs");
+        Assert.assertTrue(jobs > 0);
+    }
+}
@@ -0,0 +1,62 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.gen.InputGenerator;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+@ExtendWith(QuietLogging.class)     // robots run through thousands of commands
+public class PeriodTest {
+
+    @TempDir
+    static File tempFolder;
+
+    private static byte[] repeat(byte[] block, int length) {
+        byte[] program = new byte[length];
+        for (int i = 0; i < length; i++) {
+            program[i] = block[i % block.length];
+        }
+        return program;
+    }
+
+    @Test
+    void testPeriod() {
+        byte[] block = Robot.compile(new String[]{"TR", "A", "C", "A", "TL", "B"});
+        Assert.assertEquals(6, Period.of(repeat(block, 100)));
+        Assert.assertEquals(6, Period.of(repeat(block, 18)));
+        Assert.assertEquals(0, Period.of(repeat(block, 17)));     // less than 3 passes
+        byte[] broken = repeat(block, 100);
+        broken[50] = Robot.OP_TURN_L;
+        Assert.assertEquals(6, Period.of(Arrays.copyOf(broken, 50)));
+        Assert.assertEquals(50, Period.end(broken, 6));
+        Assert.assertEquals(100, Period.end(repeat(block, 100), 6));
+    }
+
+    /**
+     * A traced robot never skips anything; the result and the counters of a robot skipping passes must be the same.
+     */
+    @Test
+    void testSameAsStepByStep() throws IOException {
+        for (long seed = 0; seed < 8; seed++) {
+            ByteArrayOutputStream generated = new ByteArrayOutputStream();
+            new InputGenerator().seed(seed).size(30, 30).densities(0.1, 0.2).commands(5 + seed * 3).write(generated);
+            Mission base = StreamingInputReader.read(new ByteArrayInputStream(generated.toByteArray()));
+            byte[] program = repeat(base.getProgram(), 2000 + (int) seed);     // a partial pass at the end
+            if (seed % 2 == 0) {
+                program[1500] = Robot.OP_CLEAN;      // the block does not repeat any more from here
+            }
+            for (int battery : new int[]{500, 3210, 1000000}) {
+                Mission mission = new Mission(base.getRoom(), base.getStart(), program, battery);
+                String name = "seed " + seed + ", battery " + battery;
+                TracedRun.assertSameAsTraced(name, mission, new File(tempFolder, "period.trace"));
+            }
+        }
+    }
+}
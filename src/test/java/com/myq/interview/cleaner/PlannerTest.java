@@ -0,0 +1,135 @@
+package com.myq.interview.cleaner;
+
+import com.myq.interview.cleaner.data.Output;
+import com.myq.interview.cleaner.data.RobotPosition;
+import com.myq.interview.cleaner.gen.InputGenerator;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+@ExtendWith(QuietLogging.class)     // robots run through thousands of commands
+public class PlannerTest {
+
+    @TempDir
+    static File tempFolder;
+
+    private static Mission generate(long seed) throws IOException {
+        ByteArrayOutputStream generated = new ByteArrayOutputStream();
+        new InputGenerator().seed(seed).size(40, 30).densities(0.1, 0.25).commands(1).write(generated);
+        return StreamingInputReader.read(new ByteArrayInputStream(generated.toByteArray()));
+    }
+
+    /**
+     * @return number of cells reachable from the start; flood filled.
+     */
+    private static int reachable(Mission mission) {
+        Room room = mission.getRoom();
+        boolean[] seen = new boolean[room.getWidth() * room.getHeight()];
+        int[] queue = new int[seen.length];
+        int size = 0;
+        queue[size++] = room.index(mission.getStart().getX(), mission.getStart().getY());
+        seen[queue[0]] = true;
+        for (int i = 0; i < size; i++) {
+            int x = queue[i] % room.getWidth();
+            int y = queue[i] / room.getWidth();
+            for (int d = 0; d < Robot.DIRECTION.length; d++) {
+                int nextX = x + Robot.DX[d];
+                int nextY = y + Robot.DY[d];
+                if (!room.isObstacle(nextX, nextY) && !seen[room.index(nextX, nextY)]) {
+                    seen[room.index(nextX, nextY)] = true;
+                    queue[size++] = room.index(nextX, nextY);
+                }
+            }
+        }
+        return size;
+    }
+
+    private static long cost(byte[] program) {
+        long cost = 0;
+        for (byte op : program) {
+            cost += Robot.CONSUMPTION[op];
+        }
+        return cost;
+    }
+
+    @Test
+    void testCleansAllReachable() throws IOException {
+        for (long seed = 0; seed < 5; seed++) {
+            Mission mission = generate(seed);
+            Planner planner = new Planner(mission);
+            byte[] program = planner.plan();
+            int cells = reachable(mission);
+            Assert.assertEquals(cost(program), planner.getCost());
+
+            JobMetrics metrics = new JobMetrics();
+            Output output = new Robot(new Mission(mission.getRoom(), mission.getStart(), program, (int) planner.getCost()), metrics).work();
+            Assert.assertEquals(cells, output.getCleaned().size());
+            Assert.assertEquals(cells, output.getVisited().size());
+            Assert.assertEquals(0, output.getBattery());
+            Assert.assertEquals(0, metrics.backoffTriggers);
+        }
+    }
+
+    /**
+     * With nothing in the way, the robot should go row by row: one step and a clean per cell, two turns per row.
+     */
+    @Test
+    void testOpenRoom() {
+        int width = 20;
+        int height = 10;
+        byte[] cells = new byte[width * height];
+        Arrays.fill(cells, Room.SPACE);
+        Planner planner = new Planner(new Room(width, height, cells), new RobotPosition(3, 4, Robot.DIRECTION_E));
+        planner.plan();
+        int cost = width * height * (Robot.CLEAN_CONSUMPTION + Robot.GO_ADVANCE_CONSUMPTION);
+        Assert.assertTrue(String.valueOf(planner.getCost()), planner.getCost() <= cost + 2 * height * Robot.TURN_CONSUMPTION + width * Robot.GO_BACK_CONSUMPTION);
+    }
+
+    @Test
+    void testBattery() throws IOException {
+        Mission mission = generate(7);
+        int battery = 300;
+        Planner planner = new Planner(mission);
+        byte[] program = planner.plan(battery);
+        Assert.assertTrue(planner.getCost() <= battery);
+
+        Output output = new Robot(new Mission(mission.getRoom(), mission.getStart(), program, battery), new JobMetrics()).work();
+        Assert.assertEquals(battery - planner.getCost(), output.getBattery());
+        int clean = 0;
+        for (byte op : program) {
+            clean += op == Robot.OP_CLEAN ? 1 : 0;
+        }
+        Assert.assertEquals(clean, output.getCleaned().size());
+    }
+
+    @Test
+    void testSingleCell() throws IOException {
+        Mission mission = StreamingInputReader.read(TestResources.getFile("json/inputs/single_cell_room.json"));
+        Assert.assertArrayEquals(new byte[]{Robot.OP_CLEAN}, new Planner(mission).plan());
+    }
+
+    @Test
+    void testWrite() throws IOException {
+        Mission mission = generate(3);
+        File planned = new File(tempFolder, "planned.json");
+        Assert.assertEquals(0, Planner.run(new String[]{"--battery", "500", writeSource(mission), planned.getPath()}));
+        Mission read = StreamingInputReader.read(planned);
+        Assert.assertEquals(500, read.getBattery());
+        Assert.assertArrayEquals(new Planner(mission).plan(500), read.getProgram());
+        Assert.assertEquals(reachable(mission), reachable(read));
+        Assert.assertEquals(Main.ERR_INVALID_PARAMETERS, Planner.run(new String[]{"--battery", "-1", writeSource(mission), planned.getPath()}));
+    }
+
+    private static String writeSource(Mission mission) throws IOException {
+        File source = new File(tempFolder, "source.json");
+        new Planner(mission).write(new byte[]{Robot.OP_ADVANCE}, 1, source);
+        return source.getPath();
+    }
+}
@@ -0,0 +1,31 @@
+package com.myq.interview.cleaner;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Logs only warnings and errors of the application while the tests of a class run; for tests running robots through
+ * many thousands of commands, which would otherwise log a line or more per command.
+ * <p>
+ * Use as {@code @ExtendWith(QuietLogging.class)}.
+ */
+public class QuietLogging implements BeforeAllCallback, AfterAllCallback {
+
+    private static final String LOGGER = QuietLogging.class.getPackage().getName();
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QuietLogging.class);
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(LOGGER, LogManager.getLogger(LOGGER).getLevel());
+        Configurator.setLevel(LOGGER, Level.WARN);
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        Configurator.setLevel(LOGGER, context.getStore(NAMESPACE).get(LOGGER, Level.class));
+    }
+}
@@ -1,6 +1,5 @@
 package com.myq.interview.cleaner;
 
-import com.myq.interview.cleaner.data.Input;
 import org.junit.Assert;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.DynamicTest;
@@ -43,17 +42,19 @@ public class RobotDynamicInvalidTest {
 
         private final File inputFile;
         private final String expectedException;
+        private final boolean streaming;
 
-        InvalidRobotTest(File inputFile, String expectedException) {
+        InvalidRobotTest(File inputFile, String expectedException, boolean streaming) {
             this.inputFile = inputFile;
             this.expectedException = expectedException;
+            this.streaming = streaming;
         }
 
         @Override
         public void execute() throws Throwable {
             try {
                 InputOutputParser parser = new InputOutputParser(inputFile, new File("output.json"));
-                Input input = parser.getInput();
+                Object input = streaming ? parser.readInput() : parser.getInput();
                 Assert.fail(String.format("Parser should have failed; returned %s instead", input));
             } catch (IOException e) {
                 if (expectedException == null) {
@@ -69,6 +70,16 @@ public class RobotDynamicInvalidTest {
     @TestFactory
     @DisplayName("Robot test")
     Collection<DynamicTest> testRobot() throws IOException {
+        return createTests(false);
+    }
+
+    @TestFactory
+    @DisplayName("Streaming reader test")
+    Collection<DynamicTest> testStreamingReader() throws IOException {
+        return createTests(true);
+    }
+
+    private Collection<DynamicTest> createTests(boolean streaming) throws IOException {
 //        Path inputsFolder = getResourcePath("json/invalid_inputs");
         File inputsFolder = getFileResource("json/invalid_inputs");
         File[] inputs = inputsFolder.listFiles((dir, name) -> name.endsWith(".json") && !name.startsWith("x")); //skip tests starting with x
@@ -77,7 +88,7 @@ public class RobotDynamicInvalidTest {
         for (File input : inputs) {
             File exceptionFile = new File(input.getAbsolutePath() + EXCEPTION_PREF);
             String expectedException = exceptionFile.exists() ? Files.readAllLines(exceptionFile.toPath()).get(0) : null;
-            tests.add(dynamicTest(input.getName(), new InvalidRobotTest(input, expectedException)));
+            tests.add(dynamicTest(input.getName(), new InvalidRobotTest(input, expectedException, streaming)));
 
         }
         return tests;
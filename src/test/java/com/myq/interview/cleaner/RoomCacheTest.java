@@ -0,0 +1,59 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+public class RoomCacheTest {
+
+    private static byte[] cells(int size, byte cell) {
+        byte[] cells = new byte[size];
+        cells[0] = cell;
+        return cells;
+    }
+
+    @Test
+    void testHit() {
+        RoomCache cache = new RoomCache(10, 1000);
+        Room room = cache.get(2, 2, cells(4, Room.SPACE));
+        Assert.assertSame(room, cache.get(2, 2, cells(4, Room.SPACE)));
+        Assert.assertNotSame(room, cache.get(2, 2, cells(4, Room.COLUMN)));
+        Assert.assertNotSame(room, cache.get(4, 1, cells(4, Room.SPACE)));   // same cells, other shape
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(3, cache.getMisses());
+        Assert.assertEquals(3, cache.getSize());
+    }
+
+    @Test
+    void testEviction() {
+        RoomCache cache = new RoomCache(2, 10);
+        Room first = cache.get(2, 2, cells(4, Room.SPACE));
+        cache.get(2, 2, cells(4, Room.COLUMN));
+        cache.get(2, 2, cells(4, Room.SPACE));                      // first one is now the most recently used
+        cache.get(2, 2, cells(4, Room.NO_ROOM));                    // evicts the second one
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertSame(first, cache.get(2, 2, cells(4, Room.SPACE)));
+        cache.get(3, 3, cells(9, Room.SPACE));                      // over the cells limit; evicts two rooms
+        Assert.assertEquals(3, cache.getEvictions());
+        Assert.assertEquals(1, cache.getSize());
+        Assert.assertEquals(9, cache.getCells());
+        cache.get(11, 1, cells(11, Room.SPACE));                    // too large to be cached at all
+        Assert.assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    void testSharedRoom() throws IOException {
+        File input = TestResources.getFile("json/inputs/test1.json");
+        Assert.assertNotSame(StreamingInputReader.read(input).getRoom(), StreamingInputReader.read(input).getRoom());
+        RoomCache cache = new RoomCache(10, 1000);
+        Mission first = StreamingInputReader.read(input, null, cache, new JobMetrics());
+        Mission second = StreamingInputReader.read(input, null, cache, new JobMetrics());
+        Assert.assertSame(first.getRoom(), second.getRoom());
+        ObjectMapper mapper = new ObjectMapper();
+        String expected = mapper.writeValueAsString(new Robot(first).work());
+        Assert.assertEquals(expected, mapper.writeValueAsString(new Robot(second).work()));
+    }
+}
@@ -0,0 +1,86 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.myq.interview.cleaner.exc.InvalidInputException;
+import org.junit.Assert;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class RoomFileTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @TestFactory
+    @DisplayName("Binary map test")
+    Collection<DynamicTest> testSameResultAsJsonMap() {
+        File inputsFolder = TestResources.getFile("json/inputs");
+        File[] inputs = inputsFolder.listFiles((dir, name) -> name.endsWith(".json") && !name.startsWith("x")); //skip tests starting with x
+
+        List<DynamicTest> tests = new ArrayList<>(inputs.length);
+        for (File input : inputs) {
+            tests.add(dynamicTest(input.getName(), () -> {
+                File roomFile = File.createTempFile("room-", ".bin");
+                File inputFile = File.createTempFile("input-", ".json");
+                try {
+                    Room room = StreamingInputReader.readRoom(input);
+                    RoomFile.write(room, roomFile);
+                    Room mapped = RoomFile.open(roomFile);
+                    Assert.assertEquals(room.getWidth(), mapped.getWidth());
+                    Assert.assertEquals(room.getHeight(), mapped.getHeight());
+                    for (int i = 0; i < room.getWidth() * room.getHeight(); i++) {
+                        Assert.assertEquals(room.getCell(i), mapped.getCell(i));
+                    }
+
+                    ObjectNode withoutMap = (ObjectNode) mapper.readTree(input);
+                    withoutMap.remove("map");
+                    mapper.writeValue(inputFile, withoutMap);
+                    String expected = mapper.writeValueAsString(new Robot(StreamingInputReader.read(input)).work());
+                    String actual = mapper.writeValueAsString(new Robot(StreamingInputReader.read(inputFile, mapped)).work());
+                    Assert.assertEquals(expected, actual);
+                } finally {
+                    roomFile.delete();
+                    inputFile.delete();
+                }
+            }));
+        }
+        return tests;
+    }
+
+    @Test
+    void testJsonMapSkipped() throws IOException {
+        File roomFile = File.createTempFile("room-", ".bin");
+        try {
+            File input = TestResources.getFile("json/inputs/test1.json");
+            Room room = new Room(4, 1, new byte[]{Room.SPACE, Room.SPACE, Room.SPACE, Room.SPACE});   // differs from the JSON map
+            RoomFile.write(room, roomFile);
+            Mission mission = StreamingInputReader.read(input, RoomFile.open(roomFile));
+            Assert.assertEquals(4, mission.getRoom().getWidth());
+            Assert.assertEquals(1, mission.getRoom().getHeight());
+        } finally {
+            roomFile.delete();
+        }
+    }
+
+    @Test
+    void testNotBinaryMap() throws IOException {
+        File roomFile = File.createTempFile("room-", ".bin");
+        try {
+            Files.write(roomFile.toPath(), "{\"map\": [[\"S\"]]}".getBytes());
+            Assert.assertThrows(InvalidInputException.class, () -> RoomFile.open(roomFile));
+        } finally {
+            roomFile.delete();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class SimulationServerTest {
+
+    private static SimulationServer server;
+
+    @BeforeAll
+    public static void setUp() throws IOException {
+        server = new SimulationServer(0, 2, 2);
+        server.start();
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        server.stop();
+    }
+
+    private HttpURLConnection post(String path, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream outputStream = connection.getOutputStream()) {
+            outputStream.write(body);
+        }
+        return connection;
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0) {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testSimulate() throws IOException {
+        HttpURLConnection connection = post(SimulationServer.PATH, Files.readAllBytes(TestResources.getFile("json/inputs/test1.json").toPath()));
+        Assert.assertEquals(200, connection.getResponseCode());
+        ObjectMapper mapper = new ObjectMapper();
+        Assert.assertEquals(mapper.readTree(TestResources.getFile("json/outputs/result_test1.json")), mapper.readTree(read(connection.getInputStream())));
+    }
+
+    @Test
+    void testInvalidInput() throws IOException {
+        HttpURLConnection connection = post(SimulationServer.PATH, Files.readAllBytes(TestResources.getFile("json/invalid_inputs/invalid_facing.json").toPath()));
+        Assert.assertEquals(400, connection.getResponseCode());
+        Assert.assertTrue(read(connection.getErrorStream()).startsWith("Unknown facing string: 'Q'."));
+    }
+
+    @Test
+    void testWrongPath() throws IOException {
+        Assert.assertEquals(404, post("/other", new byte[0]).getResponseCode());
+    }
+}
@@ -0,0 +1,115 @@
+package com.myq.interview.cleaner;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Not a unit test: the fast-start profile of the POM runs it once the launch scripts are assembled. It makes the
+ * class data sharing archive the scripts start with (by a training run of a batch over the test inputs) and then
+ * reports how long it takes to get a result with the archive and without it.
+ * <p>
+ * Processes are started the same way the scripts start them: the same class path and the same JVM options.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class StartupProfile {
+
+    public static final String ARCHIVE = "cds/" + Main.APP_NAME + ".jsa";     // relative to the assembly
+    private static final String OPTIONS = "cds/jvm.options";
+    private static final String INPUTS = "src/test/resources/json/inputs";
+    private static final String SAMPLE = "test1.json";
+    private static final int RUNS = 5;
+
+    private final File assembly = new File(System.getProperty("startup.assembly", "target/appassembler"));
+    private final File work = new File(assembly.getParentFile(), "startup");
+    private final File archive = new File(assembly, ARCHIVE);
+
+    @Test
+    @Order(1)
+    void train() throws IOException, InterruptedException {
+        Files.deleteIfExists(archive.toPath());
+        Files.createDirectories(archive.getParentFile().toPath());
+        File results = new File(work, "training");
+        Files.createDirectories(results.toPath());
+        run("-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath(),
+                BatchRunner.OPTION, new File(INPUTS).getAbsolutePath(), results.getAbsolutePath());
+        Assert.assertTrue("No archive made; does the JVM support -XX:ArchiveClassesAtExit?", archive.isFile());
+    }
+
+    @Test
+    @Order(2)
+    void measure() throws IOException, InterruptedException {
+        Assert.assertTrue(archive.isFile());
+        Files.createDirectories(work.toPath());
+        long with = median("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+        long without = median("-Xshare:auto");
+        String report = String.format("Time to first result of %s (median of %d runs): %d ms with %s, %d ms without it",
+                SAMPLE, RUNS, with, ARCHIVE, without);
+        System.out.println(report);
+        Files.write(new File(work, "startup.txt").toPath(), Collections.singletonList(report), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return milliseconds from starting the process to its end, when the result is written.
+     */
+    private long median(String option) throws IOException, InterruptedException {
+        long[] times = new long[RUNS];
+        File result = new File(work, "result.json");
+        for (int i = 0; i < RUNS; i++) {
+            Files.deleteIfExists(result.toPath());
+            long started = System.nanoTime();
+            run(option, new File(INPUTS, SAMPLE).getAbsolutePath(), result.getAbsolutePath());
+            times[i] = (System.nanoTime() - started) / 1_000_000;
+            Assert.assertTrue(result.isFile());
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    private void run(String option, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.add(option);
+        command.add("-XX:+IgnoreUnrecognizedVMOptions");
+        command.add("-XX:VMOptionsFile=" + new File(assembly, OPTIONS).getAbsolutePath());
+        command.add("-Dlog4j2.disable.jmx=true");
+        command.add("-classpath");
+        command.add(classPath());
+        command.add(Main.class.getName());
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command)
+                .directory(work)        // the log file goes there
+                .redirectErrorStream(true)
+                .redirectOutput(new File(work, "output.log"))
+                .start();
+        process.waitFor();
+    }
+
+    /**
+     * @return class path of the unix launch script, with its variables resolved.
+     */
+    private String classPath() throws IOException {
+        String home = assembly.getAbsolutePath();
+        for (String line : Files.readAllLines(new File(assembly, "bin/" + Main.APP_NAME).toPath(), StandardCharsets.UTF_8)) {
+            if (line.startsWith("CLASSPATH=\"")) {
+                List<String> entries = new ArrayList<>();
+                for (String entry : line.substring("CLASSPATH=".length()).split(":")) {
+                    entries.add(entry.replace("\"$BASEDIR\"", home).replace("\"$REPO\"", home + "/repo"));
+                }
+                return String.join(File.pathSeparator, entries);
+            }
+        }
+        throw new IOException("No class path in the launch script.");
+    }
+}
@@ -0,0 +1,39 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myq.interview.cleaner.data.Output;
+import org.junit.Assert;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class StreamingOutputWriterTest {
+
+    @TestFactory
+    @DisplayName("Streaming writer test")
+    Collection<DynamicTest> testSameBytesAsObjectMapper() {
+        File inputsFolder = TestResources.getFile("json/inputs");
+        File[] inputs = inputsFolder.listFiles((dir, name) -> name.endsWith(".json") && !name.startsWith("x")); //skip tests starting with x
+
+        List<DynamicTest> tests = new ArrayList<>(inputs.length);
+        for (File input : inputs) {
+            tests.add(dynamicTest(input.getName(), () -> {
+                Output output = new Robot(StreamingInputReader.read(input)).work();
+                ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                StreamingOutputWriter.write(output, actual);
+                String expected = new ObjectMapper().writeValueAsString(output);
+                Assert.assertEquals(expected, new String(actual.toByteArray(), StandardCharsets.UTF_8));
+            }));
+        }
+        return tests;
+    }
+}
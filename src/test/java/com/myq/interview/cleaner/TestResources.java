@@ -0,0 +1,21 @@
+package com.myq.interview.cleaner;
+
+import java.io.File;
+
+/**
+ * Access to the test resources (src/test/resources) as files.
+ */
+final class TestResources {
+
+    private static final ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+
+    private TestResources() {
+    }
+
+    /**
+     * @param resourceName path relative to the resources root, e.g. json/inputs/test1.json
+     */
+    static File getFile(String resourceName) {
+        return new File(classLoader.getResource(resourceName).getFile());
+    }
+}
@@ -0,0 +1,127 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myq.interview.cleaner.data.Output;
+import com.myq.interview.cleaner.data.RobotPosition;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+@ExtendWith(QuietLogging.class)     // robots run through thousands of commands
+public class TiledGridTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 600;
+
+    /**
+     * An L-shaped floor in a 1000 x 600 box: a wing along the left side and one along the bottom, with some columns and
+     * holes in them.
+     */
+    private static byte[] floor(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        byte[] cells = new byte[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                if (x < 90 || y >= 520) {
+                    double r = random.nextDouble();
+                    cells[y * WIDTH + x] = r < 0.1 ? Room.COLUMN : r < 0.12 ? Room.NO_ROOM : Room.SPACE;
+                }
+            }
+        }
+        for (int y = 512; y < 576; y++) {
+            for (int x = 192; x < 320; x++) {
+                cells[y * WIDTH + x] = Room.SPACE;      // an open hall with a few tiles all space
+            }
+        }
+        cells[0] = Room.SPACE;
+        return cells;
+    }
+
+    @Test
+    void testCells() {
+        byte[] cells = floor(1);
+        Assert.assertTrue(TiledGrid.isSparse(WIDTH, HEIGHT, cells));
+        TiledGrid grid = new TiledGrid(WIDTH, HEIGHT, cells);
+        Assert.assertTrue(grid.getStoredTiles() < 50);
+        Room tiled = new Room(grid);
+        Room dense = new Room(new ArrayGrid(WIDTH, HEIGHT, cells));
+        for (int i = 0; i < cells.length; i++) {
+            Assert.assertEquals(cells[i], grid.getCell(i));
+            if (cells[i] == Room.SPACE) {
+                for (int direction = 0; direction < Robot.DIRECTION.length; direction++) {
+                    Assert.assertEquals("cell " + i + ", direction " + direction, dense.freeCells(i, direction), tiled.freeCells(i, direction));
+                }
+            }
+        }
+        Assert.assertTrue(new Room(WIDTH, HEIGHT, cells).isTiled());
+
+        byte[] full = new byte[WIDTH * HEIGHT];
+        for (int i = 0; i < full.length; i++) {
+            full[i] = i % 7 == 0 ? Room.COLUMN : Room.SPACE;
+        }
+        Assert.assertFalse(TiledGrid.isSparse(WIDTH, HEIGHT, full));
+        Assert.assertFalse(new Room(WIDTH, HEIGHT, full).isTiled());
+
+        byte[] open = new byte[WIDTH * HEIGHT];
+        Arrays.fill(open, Room.SPACE);      // every tile uniform, none out of room
+        Assert.assertFalse(TiledGrid.isSparse(WIDTH, HEIGHT, open));
+    }
+
+    @Test
+    void testSameAsDense() throws IOException {
+        for (long seed = 0; seed < 4; seed++) {
+            byte[] cells = floor(seed);
+            SplittableRandom random = new SplittableRandom(seed);
+            byte[] program = new byte[3000];
+            for (int i = 0; i < program.length; i++) {
+                int r = random.nextInt(10);
+                program[i] = r < 5 ? Robot.OP_ADVANCE : r < 6 ? Robot.OP_BACK : r < 7 ? Robot.OP_TURN_L : r < 8 ? Robot.OP_TURN_R : Robot.OP_CLEAN;
+            }
+            RobotPosition start = new RobotPosition(0, 0, Robot.DIRECTION_S);
+            Output dense = new Robot(new Mission(new Room(new ArrayGrid(WIDTH, HEIGHT, cells)), start, program, 20000), new JobMetrics()).work();
+            Mission mission = new Mission(new Room(WIDTH, HEIGHT, cells), start, program, 20000);
+            Output tiled = new Robot(mission, new JobMetrics()).work();
+            Assert.assertEquals(mapper.writeValueAsString(dense), mapper.writeValueAsString(tiled));
+            Assert.assertEquals(dense.getVisited().size(), tiled.getVisited().size());
+
+            ByteArrayOutputStream denseBitmap = new ByteArrayOutputStream();
+            BitmapOutputWriter.write(dense, denseBitmap, true);
+            ByteArrayOutputStream tiledBitmap = new ByteArrayOutputStream();
+            BitmapOutputWriter.write(tiled, tiledBitmap, true);
+            Assert.assertArrayEquals(denseBitmap.toByteArray(), tiledBitmap.toByteArray());
+        }
+    }
+
+    @Test
+    void testCoverage() {
+        Coverage dense = new Coverage(WIDTH, HEIGHT);
+        TiledCoverage tiled = new TiledCoverage(WIDTH, HEIGHT);
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < 2000; i++) {
+            int index = random.nextInt(WIDTH * HEIGHT);
+            Assert.assertEquals(dense.visit(index), tiled.visit(index));
+            if (i % 3 == 0) {
+                Assert.assertEquals(dense.clean(index), tiled.clean(index));
+            }
+        }
+        dense.visit(WIDTH * 10 + 60, 1, 100);
+        tiled.visit(WIDTH * 10 + 60, 1, 100);
+        dense.visit(WIDTH * 590 + 999, -WIDTH, 500);
+        tiled.visit(WIDTH * 590 + 999, -WIDTH, 500);
+        Assert.assertArrayEquals(dense.getVisitedBits(), tiled.getVisitedBits());
+        Assert.assertArrayEquals(dense.getCleanedBits(), tiled.getCleanedBits());
+        Assert.assertEquals(dense.getVisited(), tiled.getVisited());
+        Assert.assertEquals(dense.getCleaned().size(), tiled.getCleaned().size());
+
+        TiledCoverage resumed = new TiledCoverage(WIDTH, HEIGHT, dense.getVisitedBits(), dense.getCleanedBits());
+        Assert.assertArrayEquals(dense.getVisitedBits(), resumed.getVisitedBits());
+        Assert.assertArrayEquals(dense.getCleanedBits(), resumed.getCleanedBits());
+    }
+}
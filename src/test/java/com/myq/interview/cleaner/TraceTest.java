@@ -0,0 +1,73 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myq.interview.cleaner.data.Output;
+import org.junit.Assert;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class TraceTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    static File tempFolder;
+
+    private static Output record(File input, File trace) throws IOException {
+        Mission mission = StreamingInputReader.read(input);
+        Robot robot = new Robot(mission);
+        try (StepRecorder recorder = new StepRecorder(trace, mission, 4)) {    // tiny buffer; flushed many times
+            robot.setRecorder(recorder);
+            return robot.work();
+        }
+    }
+
+    @TestFactory
+    @DisplayName("Trace replay test")
+    Collection<DynamicTest> testReplay() {
+        File inputsFolder = TestResources.getFile("json/inputs");
+        File[] inputs = inputsFolder.listFiles((dir, name) -> name.endsWith(".json") && !name.startsWith("x")); //skip tests starting with x
+
+        List<DynamicTest> tests = new ArrayList<>(inputs.length);
+        for (File input : inputs) {
+            tests.add(dynamicTest(input.getName(), () -> {
+                File trace = new File(tempFolder, input.getName() + ".trace");
+                Output output = record(input, trace);
+                try (TraceReader reader = new TraceReader(trace)) {
+                    Assert.assertEquals(mapper.writeValueAsString(output), mapper.writeValueAsString(reader.replay()));
+                }
+            }));
+        }
+        return tests;
+    }
+
+    @Test
+    void testRender() throws IOException {
+        File trace = new File(tempFolder, "test2.trace");
+        record(TestResources.getFile("json/inputs/test2.json"), trace);
+        TraceTool tool = new TraceTool();
+        tool.parseArguments(new String[]{"--flagged", trace.getPath()});
+        StringWriter text = new StringWriter();
+        try (TraceReader reader = new TraceReader(trace)) {
+            tool.render(reader, text);
+        }
+        String[] lines = text.toString().split(System.lineSeparator());
+        Assert.assertTrue(lines[0].startsWith("Room "));
+        Assert.assertTrue(lines.length > 1);
+        for (int i = 1; i < lines.length; i++) {
+            Assert.assertTrue(lines[i], lines[i].contains("back off") || lines[i].contains("blocked") || lines[i].contains("low battery"));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.myq.interview.cleaner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myq.interview.cleaner.data.Output;
+import org.junit.Assert;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A traced robot runs every command one by one, with none of the shortcuts (move runs, memoized back offs, skipped
+ * passes); its result is thus the reference for the shortcuts.
+ */
+final class TracedRun {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private TracedRun() {
+    }
+
+    /**
+     * Runs the mission untraced and traced (the trace goes to the given file) and asserts that the outputs and the
+     * counters are the same.
+     *
+     * @param name tells the failing case
+     */
+    static void assertSameAsTraced(String name, Mission mission, File traceFile) throws IOException {
+        JobMetrics untraced = new JobMetrics();
+        Output expected = new Robot(mission, untraced).work();
+
+        JobMetrics traced = new JobMetrics();
+        Robot robot = new Robot(mission, traced);
+        Output output;
+        try (StepRecorder recorder = new StepRecorder(traceFile, mission)) {
+            robot.setRecorder(recorder);
+            output = robot.work();
+        }
+        Assert.assertEquals(name, mapper.writeValueAsString(output), mapper.writeValueAsString(expected));
+        Assert.assertArrayEquals(name, traced.commands, untraced.commands);
+        Assert.assertArrayEquals(name, traced.batterySpent, untraced.batterySpent);
+        Assert.assertArrayEquals(name, traced.backoffSuccesses, untraced.backoffSuccesses);
+        Assert.assertEquals(name, traced.blockedMoves, untraced.blockedMoves);
+        Assert.assertEquals(name, traced.backoffTriggers, untraced.backoffTriggers);
+        Assert.assertEquals(name, traced.stuck, untraced.stuck);
+    }
+}
@@ -0,0 +1,86 @@
+package com.myq.interview.cleaner.gen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myq.interview.cleaner.Mission;
+import com.myq.interview.cleaner.QuietLogging;
+import com.myq.interview.cleaner.Robot;
+import com.myq.interview.cleaner.Room;
+import com.myq.interview.cleaner.StreamingInputReader;
+import com.myq.interview.cleaner.data.Input;
+import org.junit.Assert;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.TestFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+@ExtendWith(QuietLogging.class)     // robots run through thousands of commands
+public class InputGeneratorTest {
+
+    private static byte[] generate(InputGenerator generator) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        generator.write(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    @Test
+    void testDeterministic() throws IOException {
+        byte[] first = generate(new InputGenerator().seed(7).size(50, 40).densities(0.1, 0.2).commands(1000));
+        byte[] second = generate(new InputGenerator().seed(7).size(50, 40).densities(0.1, 0.2).commands(1000));
+        byte[] other = generate(new InputGenerator().seed(8).size(50, 40).densities(0.1, 0.2).commands(1000));
+        Assert.assertArrayEquals(first, second);
+        Assert.assertFalse(Arrays.equals(first, other));
+    }
+
+    @Test
+    void testMapIndependentOfCommands() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Input few = mapper.readValue(generate(new InputGenerator().seed(3).size(30, 20).densities(0.3, 0.3).commands(10)), Input.class);
+        Input many = mapper.readValue(generate(new InputGenerator().seed(3).size(30, 20).densities(0.3, 0.3).commands(10000)), Input.class);
+        Assert.assertArrayEquals(few.getMap(), many.getMap());
+        Assert.assertEquals(10000, many.getCommands().length);
+    }
+
+    @Test
+    void testStartOnSpace() throws IOException {
+        for (long seed = 0; seed < 20; seed++) {
+            Mission mission = StreamingInputReader.read(new ByteArrayInputStream(generate(
+                    new InputGenerator().seed(seed).size(5, 5).densities(0.5, 0.5))));  // the start is the only space
+            Room room = mission.getRoom();
+            Assert.assertEquals(Room.SPACE, room.getCell(room.index(mission.getStart().getX(), mission.getStart().getY())));
+        }
+    }
+
+    /**
+     * Generated rooms and commands read by the streaming reader and by data binding must give the same result.
+     */
+    @TestFactory
+    Collection<DynamicTest> testStress() {
+        ObjectMapper mapper = new ObjectMapper();
+        List<DynamicTest> tests = new ArrayList<>();
+        int[][] sizes = {{1, 1}, {7, 300}, {300, 7}, {200, 200}};
+        double[][] densities = {{0, 0}, {0.05, 0.05}, {0.2, 0.3}};
+        for (int[] size : sizes) {
+            for (double[] density : densities) {
+                String name = String.format("%dx%d null %s column %s", size[0], size[1], density[0], density[1]);
+                tests.add(dynamicTest(name, () -> {
+                    byte[] json = generate(new InputGenerator().seed(size[0] * 31L + size[1]).size(size[0], size[1])
+                            .densities(density[0], density[1]).commands(3000).maxRun(50));
+                    String streamed = mapper.writeValueAsString(new Robot(StreamingInputReader.read(new ByteArrayInputStream(json))).work());
+                    String bound = mapper.writeValueAsString(new Robot(mapper.readValue(json, Input.class)).work());
+                    Assert.assertEquals(bound, streamed);
+                }));
+            }
+        }
+        return tests;
+    }
+}